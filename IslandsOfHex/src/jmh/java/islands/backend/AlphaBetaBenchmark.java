@@ -0,0 +1,43 @@
+package islands.backend;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a fixed-depth alpha-beta search from the empty board. The table is
+ * cleared before every search so each operation does the same work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlphaBetaBenchmark {
+
+    @Param({"5", "11"})
+    int size;
+
+    @Param({"3", "4"})
+    int depth;
+
+    AlphaBetaPlayer player;
+    GameModel model;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        player = new AlphaBetaPlayer(0, depth, 1 << 20);
+        model = new GameModel(size);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        player.table().clear();
+    }
+
+    @Benchmark
+    public int chooseMove() {
+        return player.chooseMove(model, GameModel.WHITE);
+    }
+}
@@ -0,0 +1,169 @@
+package islands.backend;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the GameModel operations the controller calls on every move
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class GameModelBenchmark {
+
+    @Param({"5", "11", "25", "2500"})
+    int size;
+
+    // a shuffled order of every hex, played through by makePlay
+    int[] order;
+    int next;
+    GameModel model;
+
+    // a half full board for the canPlay and score benchmarks
+    GameModel halfFull;
+    int[] probes;
+    int probe;
+
+    // a snapshot of the half full board and a game to restore it into
+    ByteBuffer snapshot;
+    GameModel restored;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rand = new Random(42);
+        order = shuffledHexes(size, rand);
+        model = new GameModel(size);
+        next = 0;
+
+        halfFull = new GameModel(size);
+        int[] fill = shuffledHexes(size, rand);
+        for (int i = 0; i < fill.length / 2; i++) {
+            if (halfFull.makePlay(fill[i] / size, fill[i] % size, i % 2 == 0)) {
+                break;
+            }
+        }
+        probes = shuffledHexes(size, rand);
+        probe = 0;
+
+        snapshot = ByteBuffer.allocateDirect(halfFull.snapshotSize()).order(java.nio.ByteOrder.nativeOrder());
+        restored = new GameModel(size);
+    }
+
+    @Benchmark
+    public GameModel newModel() {
+        return new GameModel(size);
+    }
+
+    @Benchmark
+    public boolean canPlay() {
+        int hex = probes[probe];
+        probe = probe + 1 == probes.length ? 0 : probe + 1;
+        return halfFull.canPlay(hex / size, hex % size);
+    }
+
+    /**
+     * One play into the next hex of a random order, starting a new board
+     * once a game ends (that restart is included in the measurement)
+     */
+    @Benchmark
+    public boolean makePlay() {
+        if (next == order.length) {
+            model = new GameModel(size);
+            next = 0;
+        }
+        int hex = order[next];
+        boolean done = model.makePlay(hex / size, hex % size, next % 2 == 0);
+        next = done ? order.length : next + 1;
+        return done;
+    }
+
+    /**
+     * Play into an empty hex of the half full board and take it back again
+     */
+    @Benchmark
+    public boolean makeAndUnmakePlay() {
+        int hex = probes[probe];
+        probe = probe + 1 == probes.length ? 0 : probe + 1;
+        if (!halfFull.canPlay(hex / size, hex % size)) {
+            return false;
+        }
+        boolean done = halfFull.makePlay(hex / size, hex % size, (probe & 1) == 0);
+        halfFull.unmakePlay();
+        return done;
+    }
+
+    @Benchmark
+    public void scores(Blackhole bh) {
+        bh.consume(halfFull.whiteScore());
+        bh.consume(halfFull.blackScore());
+    }
+
+    @Benchmark
+    public ByteBuffer snapshot() {
+        snapshot.clear();
+        halfFull.snapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Restore the half full position into an existing game of the same size
+     */
+    @Benchmark
+    public GameModel restore() {
+        snapshot.clear();
+        halfFull.snapshot(snapshot);
+        snapshot.flip();
+        restored.restore(snapshot);
+        return restored;
+    }
+
+    /**
+     * Copy the half full position into a bitboard and flood count both colors
+     */
+    @Benchmark
+    public void bitBoardScores(Blackhole bh) {
+        BitBoard board = new BitBoard(halfFull);
+        bh.consume(board.whiteScore());
+        bh.consume(board.blackScore());
+    }
+
+    /**
+     * A whole game of alternating random plays on a fresh board
+     */
+    @Benchmark
+    public int randomGame() {
+        GameModel game = new GameModel(size);
+        int played = 0;
+        boolean done = false;
+        while (!done) {
+            int hex = order[played];
+            done = game.makePlay(hex / size, hex % size, played % 2 == 0);
+            played++;
+        }
+        return game.whiteScore() - game.blackScore();
+    }
+
+    /**
+     * @return every hex index of a size x size board in random order
+     */
+    static int[] shuffledHexes(int size, Random rand) {
+        int[] hexes = new int[size * size];
+        for (int i = 0; i < hexes.length; i++) {
+            hexes[i] = i;
+        }
+        for (int i = hexes.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = hexes[i];
+            hexes[i] = hexes[j];
+            hexes[j] = tmp;
+        }
+        return hexes;
+    }
+}
@@ -0,0 +1,50 @@
+package islands.backend;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks labelling a half full board from scratch, in one sweep and in
+ * parallel stripes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class IslandLabelerBenchmark {
+
+    @Param({"25", "500", "2500"})
+    int size;
+
+    GameModel halfFull;
+    IslandLabeler labeler;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rand = new Random(42);
+        halfFull = new GameModel(size);
+        int[] order = GameModelBenchmark.shuffledHexes(size, rand);
+        for (int i = 0; i < order.length / 2; i++) {
+            if (halfFull.makePlay(order[i] / size, order[i] % size, i % 2 == 0)) {
+                break;
+            }
+        }
+        labeler = new IslandLabeler();
+    }
+
+    @Benchmark
+    public int label() {
+        labeler.label(halfFull);
+        return labeler.whiteIslands() - labeler.blackIslands();
+    }
+
+    @Benchmark
+    public int labelParallel() {
+        labeler.labelParallel(halfFull);
+        return labeler.whiteIslands() - labeler.blackIslands();
+    }
+}
@@ -0,0 +1,46 @@
+package islands.backend;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how MCTS playout throughput scales with the number of search threads.
+ * Each operation is one move searched with a fixed playout budget, so the
+ * throughput multiplied by PLAYOUTS is playouts per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MonteCarloBenchmark {
+
+    static final int PLAYOUTS = 4096;
+
+    @Param({"5", "11", "25"})
+    int size;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    MonteCarloPlayer player;
+    GameModel model;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        player = new MonteCarloPlayer(threads, 0, PLAYOUTS, 42);
+        model = new GameModel(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        player.shutdown();
+    }
+
+    @Benchmark
+    public int chooseMove() {
+        return player.chooseMove(model, GameModel.WHITE);
+    }
+}
@@ -0,0 +1,85 @@
+package islands.frontend;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks turning a mouse position into a board position, drawing a move,
+ * and redrawing the whole board zoomed out to fit the view
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class HexGridBenchmark {
+
+    @Param({"5", "11", "25", "2500"})
+    int size;
+
+    HexGrid grid;
+    // mouse positions over the panel, most of them on a hexagon
+    int[] xs;
+    int[] ys;
+    int next;
+
+    // stands in for the screen, painted clipped to the changed hexagon as Swing would
+    BufferedImage screen;
+    int move;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        grid = new HexGrid(size, 10);
+        Random rand = new Random(42);
+        xs = new int[1024];
+        ys = new int[1024];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = rand.nextInt(Game.BOARD_WIDTH);
+            ys[i] = rand.nextInt(Game.BOARD_HEIGHT);
+        }
+        next = 0;
+        screen = new BufferedImage(Game.BOARD_WIDTH, Game.BOARD_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        grid.paintComponent(screen.getGraphics());
+        move = 0;
+    }
+
+    @Benchmark
+    public Optional<Point> getHexDim() {
+        int i = next;
+        next = (next + 1) & (xs.length - 1);
+        return grid.getHexDim(ys[i], xs[i]);
+    }
+
+    /**
+     * Color the next hexagon and paint the region it dirtied
+     */
+    @Benchmark
+    public BufferedImage setColorAndPaint() {
+        int row = move / size;
+        int col = move % size;
+        move = move + 1 == size * size ? 0 : move + 1;
+        grid.setColor(row, col, (move & 1) == 0 ? -1 : 1);
+        Graphics g = screen.getGraphics();
+        g.setClip(grid.bounds(row, col));
+        grid.paintComponent(g);
+        g.dispose();
+        return screen;
+    }
+
+    /**
+     * Redraw the view of the whole board, as after a pan or zoom
+     */
+    @Benchmark
+    public BufferedImage paintFitted() {
+        grid.zoomToFit();
+        grid.pan(0, 0);
+        grid.paintComponent(screen.getGraphics());
+        return screen;
+    }
+}
@@ -0,0 +1,108 @@
+package islands.middle;
+
+import islands.backend.GameModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.event.MouseListener;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a whole game driven through GameController.tryRowCol with a view
+ * that draws nothing, so only the controller, its game thread and the model
+ * are measured
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class GameControllerBenchmark {
+
+    @Param({"5", "11", "25", "2500"})
+    int size;
+
+    int[] order;
+    // the number of moves in the order before the game ends
+    int length;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rand = new Random(42);
+        order = new int[size * size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        GameModel model = new GameModel(size);
+        length = 0;
+        boolean over = false;
+        while (!over) {
+            over = model.makePlay(order[length] / size, order[length] % size, length % 2 == 0);
+            length++;
+        }
+    }
+
+    @Benchmark
+    public int randomGame() {
+        NullView view = new NullView();
+        GameController gc = new GameController(false);
+        gc.setSize(size);
+        gc.setDelegate(view);
+        for (int i = 0; i < length; i++) {
+            gc.tryRowCol(order[i] / size, order[i] % size);
+        }
+        gc.awaitIdle();
+        gc.stopAll();
+        return length;
+    }
+
+    /**
+     * A view that only remembers the last score and winner
+     */
+    static class NullView implements GameController.ViewDelegate {
+        String winner;
+        int whiteScore;
+        int blackScore;
+
+        @Override
+        public void displayTurn(String clr) {
+        }
+
+        @Override
+        public void setColor(int row, int col, int clr) {
+        }
+
+        @Override
+        public void listen(MouseListener ml) {
+        }
+
+        @Override
+        public Optional<Point> getHexDim(int y, int x) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void setTime(double ms) {
+        }
+
+        @Override
+        public void setWinner(String winner) {
+            this.winner = winner;
+        }
+
+        @Override
+        public void setScore(int whiteScore, int blackScore) {
+            this.whiteScore = whiteScore;
+            this.blackScore = blackScore;
+        }
+    }
+}
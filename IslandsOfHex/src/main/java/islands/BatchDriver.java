@@ -0,0 +1,38 @@
+package islands;
+
+import islands.backend.BatchSimulator;
+import islands.backend.GameRecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Launching point for headless simulations: plays random games on every core
+ * and prints the combined results, optionally saving every game to an archive.
+ *
+ * usage: BatchDriver games size [threads] [seed] [archive]
+ */
+public class BatchDriver {
+
+    public static void main(String [] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BatchDriver games size [threads] [seed] [archive]");
+            System.exit(1);
+        }
+        long games = Long.parseLong(args[0]);
+        int size = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        System.out.println("seed " + seed + ", " + threads + " threads");
+        BatchSimulator simulator = new BatchSimulator(size, threads, seed);
+        if (args.length > 4) {
+            try (GameRecordWriter record = new GameRecordWriter(Path.of(args[4]))) {
+                System.out.print(simulator.run(games, record));
+            }
+        } else {
+            System.out.print(simulator.run(games));
+        }
+    }
+
+}
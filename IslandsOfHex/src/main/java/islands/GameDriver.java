@@ -1,16 +1,24 @@
 package islands;
 
 import islands.frontend.Game;
+import islands.metrics.MetricsRegistry;
 
 import javax.swing.*;
 import java.awt.*;
 
 /**
  * Main launching point for the Hex Game
+ *
+ * The game's metrics are published over JMX as islands:type=Metrics, and
+ * printed on exit when run with -Dislands.metrics.dump=true
  */
 public class GameDriver {
 
     public static void main(String [] args) {
+        MetricsRegistry.global().registerMBean("islands:type=Metrics");
+        if (Boolean.getBoolean("islands.metrics.dump")) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(MetricsRegistry.global().dump())));
+        }
         JFrame frame = new JFrame("Islands of Hex");
 
         Game game = new Game();
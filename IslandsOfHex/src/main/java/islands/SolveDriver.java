@@ -0,0 +1,36 @@
+package islands;
+
+import islands.backend.ExactSolver;
+import islands.backend.GameModel;
+import islands.backend.SolvedTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Launching point for solving a small board: finds the outcome and a best move
+ * for every position and writes them to a table that can be memory-mapped.
+ *
+ * usage: SolveDriver size file
+ */
+public class SolveDriver {
+
+    public static void main(String [] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: SolveDriver size file");
+            System.exit(1);
+        }
+        int size = Integer.parseInt(args[0]);
+        Path file = Path.of(args[1]);
+
+        long start = System.nanoTime();
+        SolvedTable table = new ExactSolver(size).solve();
+        long solved = System.nanoTime();
+        table.write(file);
+        System.out.printf("%dx%d: %d positions solved in %.1f s, written to %s in %.1f s%n", size, size,
+                table.solvedCount(), (solved - start) / 1e9, file, (System.nanoTime() - solved) / 1e9);
+        String[] outcomes = {"black wins", "a tie", "white wins"};
+        System.out.println("with best play the game is " + outcomes[table.outcome(new GameModel(size)) + 1]);
+    }
+
+}
@@ -0,0 +1,302 @@
+package islands.backend;
+
+import java.util.Arrays;
+
+/**
+ * A deterministic player that searches the game tree with negamax alpha-beta
+ * and iterative deepening, scoring positions by island difference.
+ *
+ * Each iteration searches one ply deeper than the last until the time budget
+ * or the depth limit runs out; the result of an iteration cut short is thrown
+ * away. Moves are tried best first: the move stored in the transposition
+ * table, then the two killer moves of the ply, then the rest by history score.
+ * The table is kept between moves so later searches start from earlier work,
+ * and cleared when the board size changes, since the hashes of positions on
+ * different sizes can match.
+ */
+public class AlphaBetaPlayer implements Player {
+
+    /** the deepest search allowed */
+    public static final int MAX_DEPTH = 64;
+
+    // a finished game is worth more than any island difference
+    static final int WIN = 1 << 25;
+    private static final int INFINITY = 1 << 29;
+    // XORed into the hash when white is to move, so the side to move is part of the key
+    private static final long WHITE_TO_MOVE = 0x6A09E667F3BCC909L;
+    // the clock is read once per this many nodes
+    private static final int CLOCK_MASK = 1023;
+
+    private final long moveNanos;
+    private final int maxDepth;
+    private final TranspositionTable table;
+    // the board size the table holds positions of
+    private int tableEdge;
+
+    // search state, reset for every move
+    private GameModel game;
+    private long deadline;
+    private boolean stopped;
+    private long nodes;
+    private final int[][] killers = new int[MAX_DEPTH][2];
+    private int[][] history;
+    private final long[][] ordered = new long[MAX_DEPTH][];
+    private final int[][] pv = new int[MAX_DEPTH + 1][MAX_DEPTH + 1];
+    private final int[] pvLength = new int[MAX_DEPTH + 1];
+
+    // results of the last move
+    private long lastNodes;
+    private long lastNanos;
+    private int lastDepth;
+    private int lastScore;
+    private int[] lastPv = new int[0];
+
+    /**
+     * Create a player with the given budgets
+     * @param moveMillis time allowed per move in milliseconds, 0 for no limit
+     * @param maxDepth the deepest search in plies, 1 to MAX_DEPTH
+     * @param tableCapacity the number of transposition table entries
+     * @throws IllegalArgumentException for a depth outside 1 to MAX_DEPTH or a negative time
+     */
+    public AlphaBetaPlayer(long moveMillis, int maxDepth, int tableCapacity) {
+        if (moveMillis < 0 || maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException();
+        }
+        this.moveNanos = moveMillis * 1_000_000L;
+        this.maxDepth = maxDepth;
+        this.table = new TranspositionTable(tableCapacity);
+    }
+
+    /**
+     * Create a player that searches as deep as it can in the given time per move
+     * @param moveMillis time allowed per move in milliseconds
+     */
+    public AlphaBetaPlayer(long moveMillis) {
+        this(moveMillis, MAX_DEPTH, 1 << 20);
+    }
+
+    @Override
+    public int chooseMove(GameModel model, boolean clr) {
+        long start = System.nanoTime();
+        deadline = moveNanos > 0 ? start + moveNanos : Long.MAX_VALUE;
+        game = new GameModel(model);
+        if (game.gameEdge != tableEdge) {
+            table.clear();
+            tableEdge = game.gameEdge;
+        }
+        stopped = false;
+        nodes = 0;
+        for (int[] k : killers) {
+            Arrays.fill(k, -1);
+        }
+        if (history == null || history[0].length != model.board.length) {
+            history = new int[2][model.board.length];
+        } else {
+            // age the history so the last move's cutoffs count for less
+            for (int[] h : history) {
+                for (int i = 0; i < h.length; i++) {
+                    h[i] >>= 1;
+                }
+            }
+        }
+
+        // fall back on any legal move should the first iteration not finish
+        int best = game.emptyHex(0);
+        lastDepth = 0;
+        lastScore = 0;
+        lastPv = new int[] {best};
+        int limit = Math.min(maxDepth, game.emptyCount());
+        for (int depth = 1; depth <= limit; depth++) {
+            int score = search(depth, -INFINITY, INFINITY, clr, 0);
+            if (stopped || pvLength[0] == 0) {
+                break;
+            }
+            best = pv[0][0];
+            lastDepth = depth;
+            lastScore = score;
+            lastPv = Arrays.copyOf(pv[0], pvLength[0]);
+            // the game's end is in sight, deeper searches can't change the result
+            if (Math.abs(score) > WIN / 2) {
+                break;
+            }
+        }
+        lastNodes = nodes;
+        lastNanos = System.nanoTime() - start;
+        game = null;
+        return best;
+    }
+
+    /**
+     * Negamax search of the current position
+     * @param depth plies left to search
+     * @param alpha the score the side to move is already sure of
+     * @param beta the score the opponent is already sure of
+     * @param clr the side to move
+     * @param ply plies from the root
+     * @return the position's score for the side to move
+     */
+    private int search(int depth, int alpha, int beta, boolean clr, int ply) {
+        pvLength[ply] = ply;
+        if ((++nodes & CLOCK_MASK) == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+            return 0;
+        }
+        if (game.isGameOver()) {
+            return evaluate(clr, true);
+        }
+        if (depth == 0) {
+            return evaluate(clr, false);
+        }
+
+        long key = game.hash() ^ (clr == GameModel.WHITE ? WHITE_TO_MOVE : 0);
+        long entry = table.probe(key);
+        int tableMove = -1;
+        if (entry != TranspositionTable.MISS) {
+            tableMove = TranspositionTable.move(entry);
+            // never cut at the root, it has to come back with a move
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        int count = orderMoves(clr, ply, tableMove);
+        long[] moves = ordered[ply];
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            int hex = (int) moves[i];
+            game.makePlay(hex / game.gameEdge, hex % game.gameEdge, clr);
+            int score = -search(depth - 1, -beta, -alpha, !clr, ply + 1);
+            game.unmakePlay();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = hex;
+                if (score > alpha) {
+                    alpha = score;
+                    pv[ply][ply] = hex;
+                    System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                    pvLength[ply] = pvLength[ply + 1];
+                    if (alpha >= beta) {
+                        if (killers[ply][0] != hex) {
+                            killers[ply][1] = killers[ply][0];
+                            killers[ply][0] = hex;
+                        }
+                        history[clr == GameModel.WHITE ? 0 : 1][hex] += depth * depth;
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, TranspositionTable.pack(best, depth, bound, bestMove));
+        return best;
+    }
+
+    /**
+     * Put the empty hexes in ordered[ply], best first. Each entry holds the
+     * hex in its low half and its ordering score in its high half.
+     * @return the number of moves
+     */
+    private int orderMoves(boolean clr, int ply, int tableMove) {
+        int count = game.emptyCount();
+        if (ordered[ply] == null || ordered[ply].length < count) {
+            ordered[ply] = new long[count];
+        }
+        long[] moves = ordered[ply];
+        int[] h = history[clr == GameModel.WHITE ? 0 : 1];
+        for (int i = 0; i < count; i++) {
+            int hex = game.emptyHex(i);
+            long score = h[hex];
+            if (hex == tableMove) {
+                score = Integer.MAX_VALUE;
+            } else if (hex == killers[ply][0]) {
+                score = Integer.MAX_VALUE - 1;
+            } else if (hex == killers[ply][1]) {
+                score = Integer.MAX_VALUE - 2;
+            }
+            // negated so an ascending sort puts the best first, ties by hex
+            moves[i] = -score << 32 | hex;
+        }
+        Arrays.sort(moves, 0, count);
+        for (int i = 0; i < count; i++) {
+            moves[i] &= 0xFFFFFFFFL;
+        }
+        return count;
+    }
+
+    /**
+     * Score the position for the side to move
+     * @param over true if the game has ended, which makes the result a win, loss or tie
+     */
+    private int evaluate(boolean clr, boolean over) {
+        int diff = game.whiteScore() - game.blackScore();
+        if (clr != GameModel.WHITE) {
+            diff = -diff;
+        }
+        if (!over || diff == 0) {
+            return diff;
+        }
+        return diff > 0 ? WIN + diff : -WIN + diff;
+    }
+
+    /**
+     * @return the number of positions searched for the last move
+     */
+    public long lastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * @return positions searched per second for the last move
+     */
+    public double lastNodesPerSecond() {
+        return lastNanos == 0 ? 0 : lastNodes * 1e9 / lastNanos;
+    }
+
+    /**
+     * @return the depth of the last iteration finished for the last move, 0 if none finished
+     */
+    public int lastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * @return the score of the last move for the side that played it
+     */
+    public int lastScore() {
+        return lastScore;
+    }
+
+    /**
+     * @return the moves the last search expects to be played, starting with its choice
+     */
+    public int[] principalVariation() {
+        return lastPv.clone();
+    }
+
+    /**
+     * @return the transposition table, for its hit and collision counters
+     */
+    public TranspositionTable table() {
+        return table;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d, score %d, %d nodes (%.0f nodes/sec), table hits %.1f%%, pv %s",
+                lastDepth, lastScore, lastNodes, lastNodesPerSecond(), table.hitRate() * 100,
+                Arrays.toString(lastPv));
+    }
+}
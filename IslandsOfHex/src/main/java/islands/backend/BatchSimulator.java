@@ -0,0 +1,304 @@
+package islands.backend;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Plays many random games of one board size at once, one share of the games
+ * per thread, and gathers win rates, game lengths and score distributions.
+ * Each thread gets its own SplittableRandom split from the seed in a fixed
+ * order, so the same seed and thread count always give the same results.
+ */
+public class BatchSimulator {
+
+    private final int size;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * @param size the square size of the board
+     * @param threads the number of threads to play on
+     * @param seed seed for the random plays
+     * @throws IllegalArgumentException for a board or thread count below 1
+     */
+    public BatchSimulator(int size, int threads, long seed) {
+        if (size < 1 || threads < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.size = size;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * Play the games and wait for them to finish
+     * @param games the number of games to play
+     * @return the combined results
+     */
+    public Results run(long games) {
+        return run(games, null);
+    }
+
+    /**
+     * Play the games, writing each one to an archive as it finishes
+     * @param games the number of games to play
+     * @param record the archive to write to, or null to keep no record
+     * @return the combined results
+     * @throws UncheckedIOException if the archive can't be written
+     */
+    public Results run(long games, GameRecordWriter record) {
+        return runShares(games, (share, rand) -> play(share, rand, record));
+    }
+
+    /**
+     * Split the games between the threads and wait for every share to be played
+     * @param playShare plays a share of the games with a thread's random numbers
+     */
+    Results runShares(long games, BiFunction<Long, SplittableRandom, Results> playShare) {
+        long start = System.nanoTime();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Results>> parts = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                long share = games / threads + (t < games % threads ? 1 : 0);
+                SplittableRandom rand = seeds.split();
+                parts.add(pool.submit(() -> playShare.apply(share, rand)));
+            }
+            Results total = new Results(size);
+            for (Future<Results> part : parts) {
+                total.add(part.get());
+            }
+            total.nanos = System.nanoTime() - start;
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw (UncheckedIOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Play one thread's share of the games
+     */
+    private Results play(long games, SplittableRandom rand, GameRecordWriter record) {
+        Results results = new Results(size);
+        // one game reused for every game, so a batch doesn't churn the heap
+        GameModel model = new GameModel(size);
+        for (long game = 0; game < games; game++) {
+            model.reset();
+            boolean clr = GameModel.WHITE;
+            boolean done = false;
+            while (!done) {
+                int hex = model.randomEmptyHex(rand);
+                done = model.makePlay(hex / size, hex % size, clr);
+                clr = !clr;
+            }
+            results.record(model);
+            if (record != null) {
+                try {
+                    record.writeGame(model, "random", "random");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Totals over a batch of games
+     */
+    public static class Results {
+        private final int size;
+        long games;
+        long whiteWins;
+        long blackWins;
+        long ties;
+        long whiteSpans;
+        long blackSpans;
+        long nanos;
+        final Distribution length;
+        final Distribution whiteScore;
+        final Distribution blackScore;
+
+        Results(int size) {
+            this.size = size;
+            length = new Distribution(size * size);
+            whiteScore = new Distribution((size * size + 1) / 2);
+            blackScore = new Distribution((size * size + 1) / 2);
+        }
+
+        void record(Board board) {
+            record(board.whiteScore(), board.blackScore(), board.whiteSpan(), board.blackSpan(), board.moves());
+        }
+
+        void record(int white, int black, boolean whiteSpan, boolean blackSpan, int moves) {
+            games++;
+            if (white > black) {
+                whiteWins++;
+            } else if (black > white) {
+                blackWins++;
+            } else {
+                ties++;
+            }
+            if (whiteSpan) {
+                whiteSpans++;
+            }
+            if (blackSpan) {
+                blackSpans++;
+            }
+            length.record(moves);
+            whiteScore.record(white);
+            blackScore.record(black);
+        }
+
+        void add(Results other) {
+            games += other.games;
+            whiteWins += other.whiteWins;
+            blackWins += other.blackWins;
+            ties += other.ties;
+            whiteSpans += other.whiteSpans;
+            blackSpans += other.blackSpans;
+            length.add(other.length);
+            whiteScore.add(other.whiteScore);
+            blackScore.add(other.blackScore);
+        }
+
+        /**
+         * @return the number of games played
+         */
+        public long games() {
+            return games;
+        }
+
+        /**
+         * @return games played per second of wall-clock time
+         */
+        public double gamesPerSecond() {
+            return nanos == 0 ? 0 : games * 1e9 / nanos;
+        }
+
+        /**
+         * @return the fraction of games white won
+         */
+        public double whiteWinRate() {
+            return games == 0 ? 0 : (double) whiteWins / games;
+        }
+
+        /**
+         * @return the fraction of games black won
+         */
+        public double blackWinRate() {
+            return games == 0 ? 0 : (double) blackWins / games;
+        }
+
+        /**
+         * @return the fraction of games that were tied
+         */
+        public double tieRate() {
+            return games == 0 ? 0 : (double) ties / games;
+        }
+
+        /**
+         * @return the average number of pieces played per game
+         */
+        public double meanLength() {
+            return length.mean();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("board %dx%d, %d games in %.3f s (%.1f games/sec)%n",
+                    size, size, games, nanos / 1e9, gamesPerSecond()));
+            sb.append(String.format("white wins %.4f, black wins %.4f, ties %.4f%n",
+                    whiteWinRate(), blackWinRate(), tieRate()));
+            sb.append(String.format("ended by white span %d, black span %d, full board %d%n",
+                    whiteSpans, blackSpans, games - whiteSpans - blackSpans));
+            sb.append("game length  ").append(length).append(String.format("%n"));
+            sb.append("white score  ").append(whiteScore).append(String.format("%n"));
+            sb.append("black score  ").append(blackScore).append(String.format("%n"));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Counts of values from 0 to a known maximum, bucketed so large boards stay small
+     */
+    static class Distribution {
+        private static final int MAX_BUCKETS = 1024;
+
+        private final int width;
+        private final long[] counts;
+        private long total;
+        private long sum;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        Distribution(int maxValue) {
+            width = maxValue / MAX_BUCKETS + 1;
+            counts = new long[maxValue / width + 1];
+        }
+
+        void record(int value) {
+            counts[value / width]++;
+            total++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        void add(Distribution other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        double mean() {
+            return total == 0 ? 0 : (double) sum / total;
+        }
+
+        /**
+         * @return the lowest value of the bucket holding the given fraction of the counts
+         */
+        int percentile(double fraction) {
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.max(i * width, min);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            if (total == 0) {
+                return "none";
+            }
+            return String.format("mean %.2f, min %d, p50 %d, p90 %d, p99 %d, max %d",
+                    mean(), min, percentile(0.5), percentile(0.9), percentile(0.99), max);
+        }
+    }
+}
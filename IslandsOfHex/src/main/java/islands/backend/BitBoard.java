@@ -0,0 +1,371 @@
+package islands.backend;
+
+import java.util.Arrays;
+
+/**
+ * A compact Board with the same play and scoring as GameModel.
+ * Each color is a bitboard with one bit per hex, every row padded to a whole
+ * number of longs, so a 2500x2500 position takes 1.6 MB and copying it for a
+ * search is two array copies.
+ * Islands are found by flood filling 64 hexes at a time: a row grows from the
+ * rows above and below through the same six neighbors GameModel uses, then
+ * fills along its own runs of pieces with shift-and-mask steps.
+ */
+public class BitBoard implements Board {
+
+    private final int gameEdge;
+    // longs per row
+    private final int words;
+
+    private final long[] white;
+    private final long[] black;
+    private int move;
+    private boolean whiteSpanned;
+    private boolean blackSpanned;
+
+    // scores are counted on demand and kept until the next play
+    private int whiteScore = -1;
+    private int blackScore = -1;
+
+    // work space for flood fills, only allocated once something is counted
+    private long[] fill;
+    private long[] remaining;
+    private int floodFirstRow;
+    private int floodLastRow;
+
+    /**
+     * Construct an empty sizexsize board
+     * @param sz the square size of the board
+     */
+    public BitBoard(int sz) {
+        gameEdge = sz;
+        words = (sz + 63) >>> 6;
+        white = new long[sz * words];
+        black = new long[sz * words];
+    }
+
+    /**
+     * Copy another bitboard
+     * @param other the position to copy
+     */
+    public BitBoard(BitBoard other) {
+        gameEdge = other.gameEdge;
+        words = other.words;
+        white = other.white.clone();
+        black = other.black.clone();
+        move = other.move;
+        whiteSpanned = other.whiteSpanned;
+        blackSpanned = other.blackSpanned;
+        whiteScore = other.whiteScore;
+        blackScore = other.blackScore;
+    }
+
+    /**
+     * Copy the position of a game in progress
+     * @param model the game to copy
+     */
+    public BitBoard(GameModel model) {
+        this(model.gameEdge);
+        for (int hex = 0; hex < model.board.length; hex++) {
+            if (model.board[hex] == GameModel.EMPTY) {
+                continue;
+            }
+            long[] bits = model.board[hex] == GameModel.WHITE_TILE ? white : black;
+            int row = hex / gameEdge;
+            int col = hex - row * gameEdge;
+            bits[row * words + (col >>> 6)] |= 1L << col;
+        }
+        move = model.move;
+        whiteSpanned = model.whiteSpan();
+        blackSpanned = model.blackSpan();
+    }
+
+    /**
+     * Can a play be made at position row, col
+     * @param row the row in question
+     * @param col the col in question
+     * @return true if row, col is empty, false o.w.
+     * @throws IllegalArgumentException for invalid row and col
+     */
+    @Override
+    public boolean canPlay(int row, int col) {
+        checkBounds(row, col);
+        int word = row * words + (col >>> 6);
+        return ((white[word] | black[word]) & (1L << col)) == 0;
+    }
+
+    /**
+     * play a piece and report if the game is over (true) false, otherwise
+     * @param row the row where a piece is played
+     * @param col the col where a piece is played
+     * @param clr true for WHITE and false for BLACK
+     * @return true if the game is over and false otherwise
+     * @throws IllegalArgumentException for invalid row and col or a hex that is already taken
+     */
+    @Override
+    public boolean makePlay(int row, int col, boolean clr) {
+        if (!canPlay(row, col)) {
+            throw new IllegalArgumentException();
+        }
+        long[] own = clr == GameModel.WHITE ? white : black;
+        int word = row * words + (col >>> 6);
+        own[word] |= 1L << col;
+        move++;
+        whiteScore = -1;
+        blackScore = -1;
+
+        // only the island holding the new piece can have started spanning
+        if (clr == GameModel.WHITE ? !whiteSpanned : !blackSpanned) {
+            ensureScratch();
+            fill[word] = 1L << col;
+            flood(own, fill, row);
+            boolean spans = clr == GameModel.WHITE
+                    ? floodFirstRow == 0 && floodLastRow == gameEdge - 1
+                    : touchesColumn(fill, 0) && touchesColumn(fill, gameEdge - 1);
+            Arrays.fill(fill, floodFirstRow * words, (floodLastRow + 1) * words, 0L);
+            if (clr == GameModel.WHITE) {
+                whiteSpanned = spans;
+            } else {
+                blackSpanned = spans;
+            }
+        }
+        return isGameOver();
+    }
+
+    /**
+     * @return true if a white island touches both the top and bottom edges
+     */
+    @Override
+    public boolean whiteSpan() {
+        return whiteSpanned;
+    }
+
+    /**
+     * @return true if a black island touches both the left and right edges
+     */
+    @Override
+    public boolean blackSpan() {
+        return blackSpanned;
+    }
+
+    /**
+     * Return the score for white
+     * @return white score
+     */
+    @Override
+    public int whiteScore() {
+        if (whiteScore < 0) {
+            whiteScore = countIslands(white);
+        }
+        return whiteScore;
+    }
+
+    /**
+     * return the score for black
+     * @return black score
+     */
+    @Override
+    public int blackScore() {
+        if (blackScore < 0) {
+            blackScore = countIslands(black);
+        }
+        return blackScore;
+    }
+
+    @Override
+    public int size() {
+        return gameEdge;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return move == gameEdge * gameEdge || whiteSpanned || blackSpanned;
+    }
+
+    @Override
+    public int moves() {
+        return move;
+    }
+
+    /**
+     * Count islands by repeatedly flooding from the first piece not yet counted
+     */
+    private int countIslands(long[] color) {
+        ensureScratch();
+        System.arraycopy(color, 0, remaining, 0, color.length);
+        int islands = 0;
+        int word = 0;
+        while (true) {
+            while (word < remaining.length && remaining[word] == 0) {
+                word++;
+            }
+            if (word == remaining.length) {
+                return islands;
+            }
+            islands++;
+            fill[word] = Long.lowestOneBit(remaining[word]);
+            flood(remaining, fill, word / words);
+            for (int i = floodFirstRow * words; i < (floodLastRow + 1) * words; i++) {
+                remaining[i] &= ~fill[i];
+                fill[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Grow fill to every hex of mask connected to it. Fill starts with pieces
+     * in the given row only; the rows it ends up covering are left in
+     * floodFirstRow and floodLastRow.
+     */
+    private void flood(long[] mask, long[] fill, int row) {
+        int first = row;
+        int last = row;
+        fillRow(mask, fill, row);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            // sweep down, each row growing from the one above it
+            for (int r = first + 1; r < gameEdge; r++) {
+                if (!growRow(mask, fill, r, r - 1, true)) {
+                    if (r > last) {
+                        break;
+                    }
+                    continue;
+                }
+                changed = true;
+                last = Math.max(last, r);
+            }
+            // sweep up, each row growing from the one below it
+            for (int r = last - 1; r >= 0; r--) {
+                if (!growRow(mask, fill, r, r + 1, false)) {
+                    if (r < first) {
+                        break;
+                    }
+                    continue;
+                }
+                changed = true;
+                first = Math.min(first, r);
+            }
+        }
+        floodFirstRow = first;
+        floodLastRow = last;
+    }
+
+    /**
+     * Add to a row of fill every masked hex touching the filled hexes in the
+     * neighboring row, then spread along the row's runs
+     * @param fromAbove true when from is the row above (whose col-1 touches col),
+     *                  false when it is the row below (whose col+1 touches col)
+     * @return true if the row gained any hex
+     */
+    private boolean growRow(long[] mask, long[] fill, int row, int from, boolean fromAbove) {
+        int base = row * words;
+        int src = from * words;
+        boolean grew = false;
+        for (int i = 0; i < words; i++) {
+            long same = fill[src + i];
+            long diagonal;
+            if (fromAbove) {
+                diagonal = (same << 1) | (i > 0 ? fill[src + i - 1] >>> 63 : 0);
+            } else {
+                diagonal = (same >>> 1) | (i + 1 < words ? fill[src + i + 1] << 63 : 0);
+            }
+            long add = (same | diagonal) & mask[base + i] & ~fill[base + i];
+            if (add != 0) {
+                fill[base + i] |= add;
+                grew = true;
+            }
+        }
+        if (grew) {
+            fillRow(mask, fill, row);
+        }
+        return grew;
+    }
+
+    /**
+     * Spread the filled hexes of a row left and right along unbroken runs of mask
+     */
+    private void fillRow(long[] mask, long[] fill, int row) {
+        int base = row * words;
+        // toward higher columns, carrying the top bit into the next long
+        long carry = 0;
+        for (int i = 0; i < words; i++) {
+            long m = mask[base + i];
+            long g = fill[base + i] | (carry & m);
+            g = spreadUp(g, m);
+            fill[base + i] = g;
+            carry = g >>> 63;
+        }
+        // toward lower columns, carrying the bottom bit into the previous long
+        carry = 0;
+        for (int i = words - 1; i >= 0; i--) {
+            long m = mask[base + i];
+            long g = fill[base + i] | (carry & m);
+            g = spreadDown(g, m);
+            fill[base + i] = g;
+            carry = (g & 1L) << 63;
+        }
+    }
+
+    /**
+     * Occluded fill of g toward higher bits through the set bits of m
+     */
+    private static long spreadUp(long g, long m) {
+        g |= m & (g << 1);
+        m &= m << 1;
+        g |= m & (g << 2);
+        m &= m << 2;
+        g |= m & (g << 4);
+        m &= m << 4;
+        g |= m & (g << 8);
+        m &= m << 8;
+        g |= m & (g << 16);
+        m &= m << 16;
+        g |= m & (g << 32);
+        return g;
+    }
+
+    /**
+     * Occluded fill of g toward lower bits through the set bits of m
+     */
+    private static long spreadDown(long g, long m) {
+        g |= m & (g >>> 1);
+        m &= m >>> 1;
+        g |= m & (g >>> 2);
+        m &= m >>> 2;
+        g |= m & (g >>> 4);
+        m &= m >>> 4;
+        g |= m & (g >>> 8);
+        m &= m >>> 8;
+        g |= m & (g >>> 16);
+        m &= m >>> 16;
+        g |= m & (g >>> 32);
+        return g;
+    }
+
+    /**
+     * @return true if any row of the last flood has a hex in the given column
+     */
+    private boolean touchesColumn(long[] bits, int col) {
+        long bit = 1L << col;
+        for (int r = floodFirstRow; r <= floodLastRow; r++) {
+            if ((bits[r * words + (col >>> 6)] & bit) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ensureScratch() {
+        if (fill == null) {
+            fill = new long[white.length];
+            remaining = new long[white.length];
+        }
+    }
+
+    private void checkBounds(int row, int col) {
+        if (row >= gameEdge || row < 0 || col >= gameEdge || col < 0) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
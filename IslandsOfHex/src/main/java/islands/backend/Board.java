@@ -0,0 +1,61 @@
+package islands.backend;
+
+/**
+ * The play and scoring methods shared by every kind of position, so code that
+ * only plays pieces and reads the result can take a GameModel or a BitBoard.
+ * Searches that take moves back or hash positions still need a GameModel.
+ */
+public interface Board {
+
+    /**
+     * @return the length/width of the board
+     */
+    int size();
+
+    /**
+     * @param row the row in question
+     * @param col the col in question
+     * @return true if row, col is empty, false o.w.
+     * @throws IllegalArgumentException for invalid row and col
+     */
+    boolean canPlay(int row, int col);
+
+    /**
+     * play a piece and report if the game is over (true) false, otherwise
+     * @param row the row where a piece is played
+     * @param col the col where a piece is played
+     * @param clr true for WHITE and false for BLACK
+     * @return true if the game is over and false otherwise
+     */
+    boolean makePlay(int row, int col, boolean clr);
+
+    /**
+     * @return true if the board is full or an island spans the board
+     */
+    boolean isGameOver();
+
+    /**
+     * @return the number of pieces played
+     */
+    int moves();
+
+    /**
+     * @return true if a white island touches both the top and bottom edges
+     */
+    boolean whiteSpan();
+
+    /**
+     * @return true if a black island touches both the left and right edges
+     */
+    boolean blackSpan();
+
+    /**
+     * @return white's score, its number of islands
+     */
+    int whiteScore();
+
+    /**
+     * @return black's score, its number of islands
+     */
+    int blackScore();
+}
@@ -0,0 +1,97 @@
+package islands.backend;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The layout of a board of one size: which edges each hex lies on and where
+ * its six neighbors are. It never changes, so one is made per size and shared
+ * by every game of that size.
+ *
+ * A neighbor is hex + step(dir), for the directions of GameModel.ROW_STEPS and
+ * COL_STEPS, unless the hex lies on an edge that direction would cross.
+ */
+public final class BoardTopology {
+
+    /** the number of neighbor directions */
+    public static final int DIRECTIONS = GameModel.ROW_STEPS.length;
+
+    private static final ConcurrentMap<Integer, BoardTopology> TOPOLOGIES = new ConcurrentHashMap<>();
+
+    private final int edge;
+    // the TOP, BOTTOM, LEFT and RIGHT tags of each hex
+    private final byte[] edges;
+    private final int[] steps = new int[DIRECTIONS];
+    // the edge tags that leave no neighbor in each direction
+    private final int[] blocked = new int[DIRECTIONS];
+
+    /**
+     * The shared layout for boards of a size
+     * @param edge the length/width of the board
+     * @return the layout
+     * @throws IllegalArgumentException for a negative size
+     */
+    public static BoardTopology of(int edge) {
+        if (edge < 0) {
+            throw new IllegalArgumentException();
+        }
+        return TOPOLOGIES.computeIfAbsent(edge, BoardTopology::new);
+    }
+
+    private BoardTopology(int edge) {
+        this.edge = edge;
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            int rowStep = GameModel.ROW_STEPS[dir];
+            int colStep = GameModel.COL_STEPS[dir];
+            steps[dir] = rowStep * edge + colStep;
+            blocked[dir] = (rowStep < 0 ? GameModel.TOP : 0) | (rowStep > 0 ? GameModel.BOTTOM : 0)
+                    | (colStep < 0 ? GameModel.LEFT : 0) | (colStep > 0 ? GameModel.RIGHT : 0);
+        }
+        edges = new byte[edge * edge];
+        for (int row = 0; row < edge; row++) {
+            int rowEdges = (row == 0 ? GameModel.TOP : 0) | (row == edge - 1 ? GameModel.BOTTOM : 0);
+            // only the first and last hex of a row lie on the sides
+            for (int col = 0; col < edge; col++) {
+                edges[row * edge + col] = (byte) rowEdges;
+            }
+            edges[row * edge] |= GameModel.LEFT;
+            edges[row * edge + edge - 1] |= GameModel.RIGHT;
+        }
+    }
+
+    /**
+     * @return the length/width of the board
+     */
+    public int edge() {
+        return edge;
+    }
+
+    /**
+     * The board edges a hex lies on
+     * @param hex the hex as row * edge + col
+     * @return the TOP, BOTTOM, LEFT and RIGHT tags of the hex
+     */
+    public int edges(int hex) {
+        return edges[hex];
+    }
+
+    /**
+     * Does a hex have a neighbor in a direction
+     * @param hex the hex as row * edge + col
+     * @param dir the direction, from 0 to DIRECTIONS - 1
+     * @return false if the neighbor would be off the board
+     */
+    public boolean hasNeighbor(int hex, int dir) {
+        return (edges[hex] & blocked[dir]) == 0;
+    }
+
+    /**
+     * The neighbor of a hex in a direction, if hasNeighbor says there is one
+     * @param hex the hex as row * edge + col
+     * @param dir the direction, from 0 to DIRECTIONS - 1
+     * @return the neighbor as row * edge + col
+     */
+    public int neighbor(int hex, int dir) {
+        return hex + steps[dir];
+    }
+}
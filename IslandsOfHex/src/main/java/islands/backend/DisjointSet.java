@@ -0,0 +1,201 @@
+package islands.backend;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Disjoint-set (union-find) over the integers 0..n-1, used to track which hexes
+ * belong to the same island. Each set also carries up to four tag bits
+ * (e.g. which board edges an island touches) that are combined when sets merge.
+ *
+ * Every change is written to an undo log so the structure can be rolled back
+ * to any earlier mark. That rules out path compression, so sets are joined by
+ * rank instead, which keeps find at O(log n).
+ */
+public class DisjointSet {
+
+    private static final int TAG_BITS = 4;
+    private static final int TAG_MASK = (1 << TAG_BITS) - 1;
+    private static final int INITIAL_LOG_LIMIT = 1 << 16;
+
+    // parent[x] >= 0 is the parent of x; a root instead holds ~(rank << TAG_BITS | tags)
+    // so a whole set is described by one array
+    private final int[] parent;
+
+    // undo log: the root hung under another root (or -1 - root for a tag change)
+    // and, packed together, that root's info and the surviving root's info from before
+    private int[] logChild;
+    private int[] logInfo;
+    private int logSize = 0;
+
+    /**
+     * Create n singleton sets
+     * @param n the number of elements
+     */
+    public DisjointSet(int n) {
+        parent = new int[n];
+        Arrays.fill(parent, ~0);
+        // room for a union per element before the log has to grow, up to a limit
+        // so big boards don't pay up front for logs their games may never fill
+        logChild = new int[Math.min(Math.max(n, 16), INITIAL_LOG_LIMIT)];
+        logInfo = new int[logChild.length];
+    }
+
+    /**
+     * Copy another disjoint set, including its undo log
+     * @param other the sets to copy
+     */
+    public DisjointSet(DisjointSet other) {
+        parent = other.parent.clone();
+        logChild = other.logChild.clone();
+        logInfo = other.logInfo.clone();
+        logSize = other.logSize;
+    }
+
+    /**
+     * Find the representative of the set holding x
+     * @param x the element
+     * @return the root of x's set
+     */
+    public int find(int x) {
+        int p;
+        while ((p = parent[x]) >= 0) {
+            x = p;
+        }
+        return x;
+    }
+
+    /**
+     * Merge the sets holding a and b
+     * @param a the first element
+     * @param b the second element
+     * @return true if two different sets were merged, false if they were already joined
+     */
+    public boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        int infoA = ~parent[rootA];
+        int infoB = ~parent[rootB];
+        // hang the shallower tree under the deeper one
+        if (infoA >>> TAG_BITS < infoB >>> TAG_BITS) {
+            int tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+            tmp = infoA;
+            infoA = infoB;
+            infoB = tmp;
+        }
+        log(rootB, infoB << 16 | infoA);
+        int rank = infoA >>> TAG_BITS;
+        if (rank == infoB >>> TAG_BITS) {
+            rank++;
+        }
+        parent[rootB] = rootA;
+        parent[rootA] = ~(rank << TAG_BITS | ((infoA | infoB) & TAG_MASK));
+        return true;
+    }
+
+    /**
+     * Add tag bits to the set holding x
+     * @param x the element
+     * @param bits the tag bits to add, only the lowest four are kept
+     */
+    public void tag(int x, int bits) {
+        int root = find(x);
+        int info = ~parent[root];
+        int tagged = info | (bits & TAG_MASK);
+        if (tagged != info) {
+            log(-1 - root, info);
+            parent[root] = ~tagged;
+        }
+    }
+
+    /**
+     * The tag bits of the set holding x
+     * @param x the element
+     * @return every tag bit added to any member of x's set
+     */
+    public int tags(int x) {
+        return ~parent[find(x)] & TAG_MASK;
+    }
+
+    /**
+     * Mark the current state so it can be restored by rollback
+     * @return the mark
+     */
+    public int mark() {
+        return logSize;
+    }
+
+    /**
+     * Undo every union and tag made since the mark was taken, newest first
+     * @param mark a value returned by mark()
+     */
+    public void rollback(int mark) {
+        while (logSize > mark) {
+            logSize--;
+            int child = logChild[logSize];
+            int info = logInfo[logSize];
+            if (child >= 0) {
+                int root = parent[child];
+                parent[child] = ~(info >>> 16);
+                parent[root] = ~(info & 0xFFFF);
+            } else {
+                parent[-1 - child] = ~info;
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes snapshot writes
+     */
+    int snapshotSize() {
+        return 4 * (parent.length + 1 + 2 * logSize);
+    }
+
+    /**
+     * Write the sets and the undo log to a buffer
+     * @param out the buffer, left just past what was written
+     */
+    void snapshot(ByteBuffer out) {
+        Snapshots.putInts(out, parent, parent.length);
+        out.putInt(logSize);
+        Snapshots.putInts(out, logChild, logSize);
+        Snapshots.putInts(out, logInfo, logSize);
+    }
+
+    /**
+     * Replace the sets and the undo log with ones written by snapshot
+     * for the same number of elements
+     * @param in the buffer, left just past what was read
+     * @throws IllegalArgumentException if the undo log size is negative
+     */
+    void restore(ByteBuffer in) {
+        Snapshots.getInts(in, parent, parent.length);
+        int size = in.getInt();
+        if (size < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (size > logChild.length) {
+            logChild = new int[size];
+            logInfo = new int[size];
+        }
+        Snapshots.getInts(in, logChild, size);
+        Snapshots.getInts(in, logInfo, size);
+        logSize = size;
+    }
+
+    private void log(int child, int info) {
+        if (logSize == logChild.length) {
+            int grown = logSize * 2;
+            logChild = Arrays.copyOf(logChild, grown);
+            logInfo = Arrays.copyOf(logInfo, grown);
+        }
+        logChild[logSize] = child;
+        logInfo[logSize] = info;
+        logSize++;
+    }
+}
@@ -0,0 +1,132 @@
+package islands.backend;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solves a small board completely: the outcome with best play and a best move
+ * for every position that can come up in a game, white moving first and the
+ * sides taking turns. The game ends and is scored as in GameModel, the side
+ * with more islands winning.
+ *
+ * The results go in a SolvedTable, one byte per position, which is also the
+ * memo of the search, so a position reached by different orders of play is
+ * solved once. Every move is searched, not just enough to prove the outcome,
+ * so the table answers for any move the other side makes. The first plies are
+ * split into fork/join tasks, each on its own copy of the game. Tasks that meet
+ * at the same position may both solve it, but they write the same byte, so the
+ * table needs no locks.
+ */
+public class ExactSolver {
+
+    /** the largest board that can be solved, 4x4 has 3^16 positions and 5x5 3^25 */
+    public static final int MAX_SIZE = 4;
+
+    // plies split into tasks, each task searches the rest alone
+    private static final int SPLIT_PLIES = 3;
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int size;
+    private final int[] powers;
+    private final byte[] entries;
+
+    /**
+     * Create a solver for one board size
+     * @param size the square size of the board, 1 to MAX_SIZE
+     * @throws IllegalArgumentException for a size outside 1 to MAX_SIZE
+     */
+    public ExactSolver(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException();
+        }
+        this.size = size;
+        this.powers = SolvedTable.powers(size);
+        this.entries = new byte[SolvedTable.positions(size)];
+    }
+
+    /**
+     * Solve every position on the common fork/join pool
+     * @return the solved positions
+     */
+    public SolvedTable solve() {
+        ForkJoinPool.commonPool().invoke(new Split(new GameModel(size), 0, GameModel.WHITE));
+        return new SolvedTable(size, ByteBuffer.wrap(entries));
+    }
+
+    /**
+     * Solves the positions after each move in parallel, then the position itself
+     */
+    private class Split extends RecursiveAction {
+        private final GameModel game;
+        private final int index;
+        private final boolean clr;
+
+        Split(GameModel game, int index, boolean clr) {
+            this.game = game;
+            this.index = index;
+            this.clr = clr;
+        }
+
+        @Override
+        protected void compute() {
+            if (game.move < SPLIT_PLIES && !game.isGameOver()) {
+                List<Split> moves = new ArrayList<>();
+                for (int hex = 0; hex < game.board.length; hex++) {
+                    if (game.board[hex] == GameModel.EMPTY) {
+                        GameModel next = new GameModel(game);
+                        next.makePlay(hex / size, hex % size, clr);
+                        moves.add(new Split(next, index + digit(clr) * powers[hex], !clr));
+                    }
+                }
+                invokeAll(moves);
+            }
+            // finds every move already solved when split
+            search(game, index, clr);
+        }
+    }
+
+    /**
+     * Solve a position and every position after it
+     * @param game the game, left as it was found
+     * @param index the position's number
+     * @param clr the side to move
+     * @return the position's entry
+     */
+    private int search(GameModel game, int index, boolean clr) {
+        int entry = (byte) ENTRIES.getOpaque(entries, index) & 0xFF;
+        if (entry != 0) {
+            return entry;
+        }
+        if (game.isGameOver()) {
+            int diff = game.whiteScore() - game.blackScore();
+            entry = SolvedTable.entryOf(Integer.signum(clr == GameModel.WHITE ? diff : -diff), -1);
+        } else {
+            int best = SolvedTable.LOSS - 1;
+            int bestMove = -1;
+            for (int hex = 0; hex < game.board.length; hex++) {
+                if (game.board[hex] != GameModel.EMPTY) {
+                    continue;
+                }
+                game.makePlay(hex / size, hex % size, clr);
+                int outcome = -SolvedTable.outcomeOf(search(game, index + digit(clr) * powers[hex], !clr));
+                game.unmakePlay();
+                if (outcome > best) {
+                    best = outcome;
+                    bestMove = hex;
+                }
+            }
+            entry = SolvedTable.entryOf(best, bestMove);
+        }
+        ENTRIES.setOpaque(entries, index, (byte) entry);
+        return entry;
+    }
+
+    private static int digit(boolean clr) {
+        return clr == GameModel.WHITE ? 1 : 2;
+    }
+}
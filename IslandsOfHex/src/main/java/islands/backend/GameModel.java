@@ -7,38 +7,72 @@
 
 package islands.backend;
 
-import org.jgrapht.*;
-import org.jgrapht.graph.*;
+import islands.metrics.FlightRecording;
+import islands.metrics.MakePlayEvent;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.random.RandomGenerator;
 
 /**
  * Class to model the play of the game
  *
  */
-public class GameModel {
+public class GameModel implements Board {
 
 	// used to keep things readable in makePlay function
     public static final boolean WHITE = true;
     public static final boolean BLACK = false;
+    
+    // values stored in the board for each kind of tile
+    static final byte EMPTY = 0;
+    static final byte WHITE_TILE = -1;
+    static final byte BLACK_TILE = 1;
+    
+    // row and col offsets of the six hexes touching any hex
+    // (up, down, left, right and the up-left/down-right diagonal)
+    static final int[] ROW_STEPS = {-1, 1, 0, 0, -1, 1};
+    static final int[] COL_STEPS = {0, 0, -1, 1, -1, 1};
+    
+    // the first int of every snapshot
+    static final int SNAPSHOT_MAGIC = 0x494F4853;
+    
+    // tags for the board edges an island touches
+    static final int TOP = 1;
+    static final int BOTTOM = 2;
+    static final int LEFT = 4;
+    static final int RIGHT = 8;
+    
     // tracks the length/width of the game board
     public int gameEdge;
     public int move = 0;
+    // the edges and neighbors of each hex, shared by every game of this size
+    final BoardTopology topology;
     
-    // create the graph that that game is played on
-	public Graph<String, DefaultEdge> gameBoard = new SimpleGraph<>(DefaultEdge.class);
-	// create a dictionary that stores the tiles on the board and the clr linked to them
-	public Map<String, Integer> hexDict = new HashMap<>();
-	
-	// create global lists for later
-	ArrayList<String> counted;
-	ArrayList<String> toCount;
+    // the board stored one byte per hex, the hex at row, col lives at row * gameEdge + col
+    byte[] board;
+    // groups hexes of the same color into islands as pieces are played
+    DisjointSet islands;
+    // running island counts, updated by makePlay
+    int whiteIslands = 0;
+    int blackIslands = 0;
+    // Zobrist hash of the pieces on the board
+    long hash = 0;
+    // the move on which an island first joined its two edges, 0 if it hasn't yet
+    int whiteSpanMove = 0;
+    int blackSpanMove = 0;
+    
+    // every play so far (as row * gameEdge + col) with what is needed to take it back:
+    // how many changes it logged in the disjoint set and how it changed the island count
+    int[] plays;
+    byte[] playLogs;
+    byte[] playIslands;
+    
+    // the empty hexes are the first (gameEdge * gameEdge - move) entries of emptyHexes,
+    // emptySlots holds where each hex sits in emptyHexes so it can be swapped out in O(1).
+    // both are only built the first time empty hexes are asked for, so games that
+    // never ask don't pay for keeping them up to date
+    int[] emptyHexes;
+    int[] emptySlots;
 	
     /**
      * Construct a game with given sizexsize and an empty game board
@@ -46,34 +80,129 @@ public class GameModel {
      */
     public GameModel(int sz) {
     	gameEdge = sz;
-    	// populate the graph with a node at each point
-    	for (int row = 0; row < sz; row++) {
-    	    for (int col = 0; col < sz; col++) {
-    	        String position = row + "," + col;
-    	        // add the new point to the graph
-    	        gameBoard.addVertex(position);
-    	        // add edges to adjacent hexes if possible
-    	        if (row > 0) {
-    	        	String upPos = (row - 1) + "," + col;
-    	        	gameBoard.addEdge(position, upPos);
-    	        }
-    	        if (col > 0) {
-    	        	String leftPos = row + "," + (col - 1);
-    	        	gameBoard.addEdge(position, leftPos);
-    	        }
-    	        if (row > 0 && col > 0) {
-    	        	String diagPos = (row - 1) + "," + (col - 1);
-    	        	gameBoard.addEdge(position, diagPos);
-    	        }
-    	        
-    	        // link the number 0 (symbolizing a grey tile) to it in the map
-    	        hexDict.put(position, 0);
-    	    }
+    	topology = BoardTopology.of(sz);
+    	// every hex starts out empty (0 symbolizes a grey tile)
+    	board = new byte[sz * sz];
+    	islands = new DisjointSet(sz * sz);
+    	plays = new int[sz * sz];
+    	playLogs = new byte[sz * sz];
+    	playIslands = new byte[sz * sz];
+    }
+    
+    /**
+     * Construct a copy of a game in progress that can be played on independently
+     * @param other the game to copy
+     */
+    public GameModel(GameModel other) {
+    	gameEdge = other.gameEdge;
+    	topology = other.topology;
+    	move = other.move;
+    	hash = other.hash;
+    	board = other.board.clone();
+    	islands = new DisjointSet(other.islands);
+    	whiteIslands = other.whiteIslands;
+    	blackIslands = other.blackIslands;
+    	whiteSpanMove = other.whiteSpanMove;
+    	blackSpanMove = other.blackSpanMove;
+    	plays = other.plays.clone();
+    	playLogs = other.playLogs.clone();
+    	playIslands = other.playIslands.clone();
+    	if (other.emptyHexes != null) {
+    		emptyHexes = other.emptyHexes.clone();
+    		emptySlots = other.emptySlots.clone();
+    	}
+    }
+
+    /**
+     * Construct a game from a snapshot
+     * @param snapshot a buffer positioned at a snapshot, left just past it
+     * @throws IllegalArgumentException if the buffer doesn't hold a snapshot
+     */
+    public GameModel(ByteBuffer snapshot) {
+    	this(snapshotEdge(snapshot));
+    	restore(snapshot);
+    }
+    
+    /**
+     * helper method that reads the board size of a snapshot without moving past it
+     */
+    private static int snapshotEdge(ByteBuffer snapshot) {
+    	int start = snapshot.position();
+    	if (snapshot.getInt(start) != SNAPSHOT_MAGIC || snapshot.getInt(start + 4) < 1) {
+    		throw new IllegalArgumentException();
+    	}
+    	return snapshot.getInt(start + 4);
+    }
+    
+    /**
+     * the number of bytes snapshot will write for the game as it is now
+     * @return the snapshot size in bytes
+     */
+    public int snapshotSize() {
+    	int n = board.length;
+    	int size = 37 + n + 6 * move + islands.snapshotSize();
+    	if (emptyHexes != null) {
+    		size += 8 * n;
+    	}
+    	return size;
+    }
+    
+    /**
+     * write the whole state of the game to a buffer with bulk copies, so it can be
+     * restored later without replaying any moves. Read it back in the same byte order.
+     * @param out the buffer, with at least snapshotSize() bytes left, left just past the snapshot
+     */
+    public void snapshot(ByteBuffer out) {
+    	out.putInt(SNAPSHOT_MAGIC).putInt(gameEdge).putInt(move).putLong(hash);
+    	out.putInt(whiteIslands).putInt(blackIslands).putInt(whiteSpanMove).putInt(blackSpanMove);
+    	out.put(board);
+    	Snapshots.putInts(out, plays, move);
+    	out.put(playLogs, 0, move);
+    	out.put(playIslands, 0, move);
+    	islands.snapshot(out);
+    	out.put((byte) (emptyHexes != null ? 1 : 0));
+    	if (emptyHexes != null) {
+    		Snapshots.putInts(out, emptyHexes, board.length);
+    		Snapshots.putInts(out, emptySlots, board.length);
+    	}
+    }
+    
+    /**
+     * replace the state of this game with a snapshot of a game of the same size,
+     * reusing this game's arrays
+     * @param in a buffer positioned at a snapshot, left just past it
+     * @throws IllegalArgumentException if the buffer doesn't hold a snapshot of this size
+     */
+    public void restore(ByteBuffer in) {
+    	if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != gameEdge) {
+    		throw new IllegalArgumentException();
+    	}
+    	int moves = in.getInt();
+    	if (moves < 0 || moves > board.length) {
+    		throw new IllegalArgumentException();
+    	}
+    	move = moves;
+    	hash = in.getLong();
+    	whiteIslands = in.getInt();
+    	blackIslands = in.getInt();
+    	whiteSpanMove = in.getInt();
+    	blackSpanMove = in.getInt();
+    	in.get(board);
+    	Snapshots.getInts(in, plays, move);
+    	in.get(playLogs, 0, move);
+    	in.get(playIslands, 0, move);
+    	islands.restore(in);
+    	if (in.get() != 0) {
+    		if (emptyHexes == null) {
+    			emptyHexes = new int[board.length];
+    			emptySlots = new int[board.length];
+    		}
+    		Snapshots.getInts(in, emptyHexes, board.length);
+    		Snapshots.getInts(in, emptySlots, board.length);
+    	} else {
+    		emptyHexes = null;
+    		emptySlots = null;
     	}
-    	
-    	// check graph is running properly
-    	// System.out.println(gameBoard);
-        
     }
 
     /**
@@ -83,177 +212,278 @@ public class GameModel {
      * @return true if row, col is empty, false o.w.
      * @throws IllegalArgumentException for invalid row and col
      */
+    @Override
     public boolean canPlay(int row, int col) {
+    	checkBounds(row, col);
     	// if the hex selected doesn't have a color already then you can play
-    	String checkHex = row + "," + col;
-        if (hexDict.get(checkHex) == 0) {
-        	return true;
-        }
-        
-        // throw error
-        if(row >= gameEdge || row < 0 || col >= gameEdge || col < 0) {
-        	throw new IllegalArgumentException();
-        }
-        
-        // otherwise it is an invalid play
-        return false;
+        return board[row * gameEdge + col] == EMPTY;
     }
 
     /**
      * play a piece and report if the game is over (true) false, otherwise
      * @param row the row where a piece is played
      * @param col the col where a piece is played
-     * @param clr -1 for WHITE and 1 for BLACK
+     * @param clr true for WHITE and false for BLACK
      * @return true if the game is over and false otherwise
-     * @throws IllegalArgumentException for invalid row and col
+     * @throws IllegalArgumentException for invalid row and col or a hex that is already taken
      */
+    @Override
     public boolean makePlay(int row, int col, boolean clr) {
-    	// create a string with the selected hex's name
-    	String setHex = row + "," + col;
+    	// only made while a flight recording is running
+    	MakePlayEvent event = null;
+    	if (FlightRecording.active()) {
+    		event = new MakePlayEvent();
+    		event.begin();
+    	}
+    	checkBounds(row, col);
+    	int hex = row * gameEdge + col;
+    	// playing over a piece would leave the island counts wrong
+    	if (board[hex] != EMPTY) {
+    		throw new IllegalArgumentException();
+    	}
     	// decide which value to set the hex to based on its color
-    	int newClr = 1;
-    	if (clr == WHITE) {newClr = -1;}
-        hexDict.put(setHex, newClr);
+    	byte color = clr == WHITE ? WHITE_TILE : BLACK_TILE;
+    	board[hex] = color;
+    	hash ^= Zobrist.key(hex, clr);
+    	plays[move] = hex;
+    	if (emptyHexes != null) {
+    		// swap the hex to the end of the empty hexes, just past the ones still empty
+    		int last = board.length - move - 1;
+    		int slot = emptySlots[hex];
+    		int moved = emptyHexes[last];
+    		emptyHexes[slot] = moved;
+    		emptySlots[moved] = slot;
+    		emptyHexes[last] = hex;
+    		emptySlots[hex] = last;
+    	}
+    	int mark = islands.mark();
+    	
+    	// the new piece is an island of its own until it joins up with its neighbors
+    	int newIslands = 1;
+    	for (int dir = 0; dir < BoardTopology.DIRECTIONS; dir++) {
+    		if (topology.hasNeighbor(hex, dir)) {
+    			newIslands -= join(hex, topology.neighbor(hex, dir), color);
+    		}
+    	}
+    	// the island the new piece belongs to touches every edge its pieces touch
+    	islands.tag(hex, topology.edges(hex));
+    	int edges = islands.tags(hex);
+    	playLogs[move] = (byte) (islands.mark() - mark);
+    	playIslands[move] = (byte) newIslands;
         this.move += 1;
-        // throw error
-        if(row >= gameEdge || row < 0 || col >= gameEdge || col < 0) {
-        	throw new IllegalArgumentException();
-        }
-        
+    	if (clr == WHITE) {
+    		whiteIslands += newIslands;
+    		if (whiteSpanMove == 0 && (edges & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+    			whiteSpanMove = move;
+    		}
+    	} else {
+    		blackIslands += newIslands;
+    		if (blackSpanMove == 0 && (edges & (LEFT | RIGHT)) == (LEFT | RIGHT)) {
+    			blackSpanMove = move;
+    		}
+    	}
         
+        boolean over = isGameOver();
+        if (event != null && event.shouldCommit()) {
+        	event.boardSize = gameEdge;
+        	event.move = move;
+        	event.row = row;
+        	event.col = col;
+        	event.white = clr;
+        	event.gameOver = over;
+        	event.commit();
+        }
+        return over;
+    }
+    
+    @Override
+    public int size() {
+    	return gameEdge;
+    }
+    
+    @Override
+    public int moves() {
+    	return move;
+    }
+    
+    /**
+     * check if the game has finished
+     * @return true if the board is full or an island spans the board
+     */
+    @Override
+    public boolean isGameOver() {
         // check to see if every piece on the board is full
         if (this.move == this.gameEdge * this.gameEdge) {
         	return true;
         }
-        // TODO: check if a white island spans the entire height or a black island spans the width
-        // excluded from my project due to time constraints
+        // check if a white island spans the entire height or a black island spans the width
         return (whiteSpan() || blackSpan());
     }
     
+    /**
+     * helper method that joins a new piece to a neighboring piece of the same color
+     * @return 1 if this joined two separate islands, 0 otherwise
+     */
+    private int join(int hex, int next, byte color) {
+    	return board[next] == color && islands.union(hex, next) ? 1 : 0;
+    }
+    
+    /**
+     * clear the board for a new game of the same size, reusing every array. Like
+     * taking back every play, it only touches the hexes that were played
+     */
+    public void reset() {
+    	for (int i = 0; i < move; i++) {
+    		board[plays[i]] = EMPTY;
+    	}
+    	islands.rollback(0);
+    	move = 0;
+    	hash = 0;
+    	whiteIslands = 0;
+    	blackIslands = 0;
+    	whiteSpanMove = 0;
+    	blackSpanMove = 0;
+    	// the empty hex list is still every hex, in some order, so it can be kept
+    }
+    
+    /**
+     * take back the most recent play, restoring the board, scores and end of game state
+     * @throws IllegalStateException if no pieces have been played
+     */
+    public void unmakePlay() {
+    	if (move == 0) {
+    		throw new IllegalStateException();
+    	}
+    	// a span made by this play no longer exists once it is taken back
+    	if (whiteSpanMove == move) {whiteSpanMove = 0;}
+    	if (blackSpanMove == move) {blackSpanMove = 0;}
+    	this.move -= 1;
+    	
+    	int hex = plays[move];
+    	hash ^= Zobrist.key(hex, board[hex] == WHITE_TILE);
+    	if (board[hex] == WHITE_TILE) {
+    		whiteIslands -= playIslands[move];
+    	} else {
+    		blackIslands -= playIslands[move];
+    	}
+    	// later plays never touch the slot the hex was swapped into, so with
+    	// one less move it is back among the empty hexes
+    	board[hex] = EMPTY;
+    	islands.rollback(islands.mark() - playLogs[move]);
+    }
+    
+    /**
+     * the Zobrist hash of the position, equal for equal boards however they were reached
+     * @return the XOR of Zobrist.key for every piece on the board
+     */
+    public long hash() {
+    	return hash;
+    }
+    
+    /**
+     * the number of hexes that can still be played
+     * @return the number of empty hexes
+     */
+    public int emptyCount() {
+    	return board.length - move;
+    }
+    
+    /**
+     * one of the empty hexes, in no particular order
+     * @param i which empty hex, from 0 to emptyCount() - 1
+     * @return the hex as row * gameEdge + col
+     * @throws IllegalArgumentException if i is not below emptyCount()
+     */
+    public int emptyHex(int i) {
+    	if (i < 0 || i >= emptyCount()) {
+    		throw new IllegalArgumentException();
+    	}
+    	listEmptyHexes();
+    	return emptyHexes[i];
+    }
+    
+    /**
+     * pick an empty hex uniformly at random in O(1)
+     * @param rand the source of randomness
+     * @return the hex as row * gameEdge + col
+     * @throws IllegalStateException if the board is full
+     */
+    public int randomEmptyHex(RandomGenerator rand) {
+    	if (emptyCount() == 0) {
+    		throw new IllegalStateException();
+    	}
+    	listEmptyHexes();
+    	return emptyHexes[rand.nextInt(emptyCount())];
+    }
+    
+    /**
+     * helper method that builds the empty hex list the first time it is needed,
+     * the played hexes go after the empty ones in the order they were played
+     */
+    private void listEmptyHexes() {
+    	if (emptyHexes != null) {
+    		return;
+    	}
+    	emptyHexes = new int[board.length];
+    	emptySlots = new int[board.length];
+    	int slot = 0;
+    	for (int hex = 0; hex < board.length; hex++) {
+    		if (board[hex] == EMPTY) {
+    			emptyHexes[slot] = hex;
+    			emptySlots[hex] = slot;
+    			slot++;
+    		}
+    	}
+    	for (int played = move - 1; played >= 0; played--) {
+    		emptyHexes[slot] = plays[played];
+    		emptySlots[plays[played]] = slot;
+    		slot++;
+    	}
+    }
+    
     /**
      * helper method that checks if white has met the end game condition
+     * @return true if a white island touches both the top and bottom edges
      */
+    @Override
     public boolean whiteSpan() {
-        return false;
+        return whiteSpanMove != 0;
     }
     
     /**
      * helper method that checks if black has met the end game condition
+     * @return true if a black island touches both the left and right edges
      */
+    @Override
     public boolean blackSpan() {
-        return false;
+        return blackSpanMove != 0;
     }
-
+    
     /**
      * Return the score for white
      * @return white score
      */
+    @Override
     public int whiteScore() {
-    	// list of all checked hexes
-    	counted = new ArrayList<String>();
-    	
-    	// list of hexes that still need to be checked
-    	toCount = new ArrayList<String>();
-    	
-    	// track the score
-    	int score = 0;
-    	
-    	// run for each hex
-    	for (int row = 0; row < gameEdge; row++) {
-    		for (int col = 0; col < gameEdge; col++) {
-    			// define our current hex
-    			String currentHex = row + "," + col;
-    			// if we haven't check this hex yet and it is the correct color
-    			if (counted.contains(currentHex) == false && hexDict.get(currentHex) == -1) {
-    				// we haven't checked this hex of the correct color yet so add score
-    				score++;
-    				// add this hex and any hexes of the same color it is touching to the counted list
-    				toCount.add(currentHex);
-    				helpCount(currentHex, -1);
-    			}
-    		}
-    	}
-        return score;
+        return whiteIslands;
     }
 
     /**
      * return the score for black
      * @return black score
      */
+    @Override
     public int blackScore() {
-    	// same as whiteScore with -1 values replaced by 1
-    	// list of all checked hexes
-    	counted = new ArrayList<String>();
-    	
-    	// list of hexes that still need to be checked
-    	toCount = new ArrayList<String>();
-    	
-    	// track the score
-    	int score = 0;
-    	
-    	// run for each hex
-    	for (int row = 0; row < gameEdge; row++) {
-    		for (int col = 0; col < gameEdge; col++) {
-    			// define our current hex
-    			String currentHex = row + "," + col;
-    			// if we haven't check this hex yet and it is the correct color
-    			if (counted.contains(currentHex) == false && hexDict.get(currentHex) == 1) {
-    				// we haven't checked this hex of the correct color yet so add score
-    				score++;
-    				// add this hex and any hexes of the same color it is touching to the counted list
-    				toCount.add(currentHex);
-    				helpCount(currentHex, 1);
-    			}
-    		}
-    	}
-        return score;
+        return blackIslands;
     }
     
     /**
-     * helper function for the score that check if a hex is in an island
+     * helper method that rejects positions that are off the board
+     * @throws IllegalArgumentException for invalid row and col
      */
-    public void helpCount(String currentHex, int color) {
-		toCount.remove(0); // this is our new currentHex
-
-    	// check to make sure we didn't accidentally check a hex twice
-    	
-    	// we have counted the current hex
-    	counted.add(currentHex);
-    	
-    	// check the connected hexes
-    	for (DefaultEdge connectedHexes : gameBoard.edgesOf(currentHex)) {
-    		// if one of the connected hexes has the same color we need to count it too with breadth first sort
-    		
-    		// I need to define a pattern so the code can extract the position of the tiles in a given vertex
-    		// Define the pattern
-    		String pattern = "\\((\\d+,\\d+)\\s*:\\s*(\\d+,\\d+)\\)";
-
-    		// Create a Pattern object
-    		Pattern hexPattern = Pattern.compile(pattern);
-    		
-    		// Create a Matcher object
-    		Matcher m = hexPattern.matcher(connectedHexes.toString());
-    		
-    		// get the first and second hex in the edge
-    		m.find();
-    		String hexOne = m.group(1); // #,#
-    	    String hexTwo = m.group(2); // #,#
-    	    
-    	    // check if either one is part of the island
-    	    if (hexDict.get(hexOne) == color && hexOne.equals(currentHex) == false) {
-				if (counted.contains(hexOne) == false) {
-					toCount.add(hexOne);
-				}
-			} else if (hexDict.get(hexTwo) == color && hexTwo.equals(currentHex) == false) {
-				if (counted.contains(hexTwo) == false) {
-					toCount.add(hexTwo);
-				}
-			}
-    	}
-    	// if there are more hexes in this island run the same code for the next hex
-    	if (toCount.isEmpty() == false) {
-    		helpCount(toCount.get(0), color);
-    	}
-    	
+    private void checkBounds(int row, int col) {
+        if(row >= gameEdge || row < 0 || col >= gameEdge || col < 0) {
+        	throw new IllegalArgumentException();
+        }
     }
 }
@@ -0,0 +1,240 @@
+package islands.backend;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads back the games of an archive made by GameRecordWriter, one at a time.
+ *
+ * The file is memory-mapped a window at a time and the window moves along as
+ * games are read, so an archive of any size is read with a fixed amount of
+ * memory and the operating system does the buffering. The current game's
+ * moves are kept in arrays that are reused for the next game.
+ */
+public class GameRecordReader implements Closeable {
+
+    private static final int DEFAULT_WINDOW = 1 << 26;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowBytes;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    // the current game
+    private int size;
+    private String white;
+    private String black;
+    private boolean timed;
+    private int moveCount;
+    // (hex << 1 | 1 for white) for each move
+    private int[] moves = new int[64];
+    private long[] micros = new long[64];
+    private byte[] text = new byte[64];
+    private long games;
+
+    /**
+     * Open an archive
+     * @param file the archive to read
+     * @throws IOException if the file can't be read or isn't an archive
+     */
+    public GameRecordReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Open an archive, mapping the given number of bytes at a time
+     */
+    GameRecordReader(Path file, int windowBytes) throws IOException {
+        this.windowBytes = windowBytes;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            fileSize = channel.size();
+            map(0);
+            for (byte b : GameRecordWriter.MAGIC) {
+                if (position() == fileSize || readByte() != b) {
+                    throw new IOException("not a game archive: " + file);
+                }
+            }
+            if (position() == fileSize || readByte() != GameRecordWriter.VERSION) {
+                throw new IOException("unsupported game archive version: " + file);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Move on to the next game
+     * @return true if there was another game, false at the end of the archive
+     * @throws IOException if the archive can't be read or ends inside a game
+     */
+    public boolean next() throws IOException {
+        if (position() == fileSize) {
+            return false;
+        }
+        size = (int) readVarint();
+        white = readString();
+        black = readString();
+        timed = (readByte() & GameRecordWriter.TIMED) != 0;
+        moveCount = 0;
+        long code;
+        while ((code = readVarint()) != 0) {
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moveCount * 2);
+                micros = Arrays.copyOf(micros, moveCount * 2);
+            }
+            moves[moveCount] = (int) (code - 1);
+            micros[moveCount] = timed ? readVarint() : 0;
+            moveCount++;
+        }
+        games++;
+        return true;
+    }
+
+    /**
+     * @return the square size of the board of the current game
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the name of the white player of the current game
+     */
+    public String whitePlayer() {
+        return white;
+    }
+
+    /**
+     * @return the name of the black player of the current game
+     */
+    public String blackPlayer() {
+        return black;
+    }
+
+    /**
+     * @return true if the current game's moves carry times
+     */
+    public boolean timed() {
+        return timed;
+    }
+
+    /**
+     * @return the number of moves in the current game
+     */
+    public int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @param i the move, from 0 to moveCount() - 1
+     * @return the hex played as row * size() + col
+     */
+    public int hex(int i) {
+        checkMove(i);
+        return moves[i] >>> 1;
+    }
+
+    /**
+     * @param i the move, from 0 to moveCount() - 1
+     * @return true for WHITE and false for BLACK
+     */
+    public boolean color(int i) {
+        checkMove(i);
+        return (moves[i] & 1) != 0 ? GameModel.WHITE : GameModel.BLACK;
+    }
+
+    /**
+     * @param i the move, from 0 to moveCount() - 1
+     * @return how long the move took in microseconds, 0 for untimed games
+     */
+    public long micros(int i) {
+        checkMove(i);
+        return micros[i];
+    }
+
+    /**
+     * Play the current game out on a new model
+     * @return the game after its last move
+     * @throws IllegalArgumentException if the moves aren't a legal game
+     */
+    public GameModel replay() {
+        GameModel model = new GameModel(size);
+        for (int i = 0; i < moveCount; i++) {
+            int hex = moves[i] >>> 1;
+            model.makePlay(hex / size, hex % size, (moves[i] & 1) != 0);
+        }
+        return model;
+    }
+
+    /**
+     * @return the number of games read so far
+     */
+    public long games() {
+        return games;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void checkMove(int i) {
+        if (i < 0 || i >= moveCount) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private long position() {
+        return windowStart + window.position();
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowBytes, fileSize - start));
+    }
+
+    private byte readByte() throws IOException {
+        if (!window.hasRemaining()) {
+            long next = windowStart + window.limit();
+            if (next == fileSize) {
+                throw new EOFException("game archive ends inside a game");
+            }
+            map(next);
+        }
+        return window.get();
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("bad varint in game archive");
+    }
+
+    private String readString() throws IOException {
+        int length = (int) readVarint();
+        if (length > text.length) {
+            text = new byte[Math.max(length, text.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            text[i] = readByte();
+        }
+        return new String(text, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,196 @@
+package islands.backend;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes games to a compact binary archive, one move at a time.
+ *
+ * The archive starts with the bytes "IOHR" and a version byte, followed by
+ * any number of games. A game is
+ * <pre>
+ *   varint  board size
+ *   string  white player, then black player (varint byte length, UTF-8)
+ *   byte    flags, TIMED if every move carries a time
+ *   moves   varint (hex &lt;&lt; 1 | 1 for white) + 1, then varint microseconds if TIMED
+ *   varint  0 to end the game
+ * </pre>
+ * Varints are unsigned LEB128, seven bits to a byte, so a move on an 11x11
+ * board takes one or two bytes. Nothing about a game has to be known before
+ * its first move is written. See GameRecordReader for reading archives back.
+ */
+public class GameRecordWriter implements Closeable {
+
+    static final byte[] MAGIC = {'I', 'O', 'H', 'R'};
+    static final int VERSION = 1;
+    /** flag for games whose moves carry a time */
+    static final int TIMED = 1;
+
+    private final OutputStream out;
+    private boolean inGame;
+    private boolean timed;
+    private int size;
+    private long games;
+
+    /**
+     * Start an archive on a stream
+     * @param out where to write, closed with the writer
+     * @throws IOException if the header can't be written
+     */
+    public GameRecordWriter(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out, 1 << 16);
+        this.out.write(MAGIC);
+        this.out.write(VERSION);
+    }
+
+    /**
+     * Start an archive in a new file, replacing any file already there
+     * @param file the file to write
+     * @throws IOException if the file can't be created
+     */
+    public GameRecordWriter(Path file) throws IOException {
+        this(Files.newOutputStream(file));
+    }
+
+    /**
+     * Start a game
+     * @param size the square size of the board
+     * @param white name of the white player
+     * @param black name of the black player
+     * @param timed true if every move will be written with a time
+     * @throws IllegalStateException if the last game wasn't ended
+     * @throws IOException if writing fails
+     */
+    public void beginGame(int size, String white, String black, boolean timed) throws IOException {
+        if (inGame) {
+            throw new IllegalStateException();
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException();
+        }
+        inGame = true;
+        this.timed = timed;
+        this.size = size;
+        writeVarint(size);
+        writeString(white);
+        writeString(black);
+        out.write(timed ? TIMED : 0);
+    }
+
+    /**
+     * Write a move of an untimed game
+     * @param hex the hex played as row * size + col
+     * @param clr true for WHITE and false for BLACK
+     * @throws IllegalStateException if no untimed game was begun
+     * @throws IOException if writing fails
+     */
+    public void move(int hex, boolean clr) throws IOException {
+        if (!inGame || timed) {
+            throw new IllegalStateException();
+        }
+        writeMove(hex, clr);
+    }
+
+    /**
+     * Write a move of a timed game
+     * @param hex the hex played as row * size + col
+     * @param clr true for WHITE and false for BLACK
+     * @param micros how long the move took in microseconds
+     * @throws IllegalStateException if no timed game was begun
+     * @throws IOException if writing fails
+     */
+    public void move(int hex, boolean clr, long micros) throws IOException {
+        if (!inGame || !timed) {
+            throw new IllegalStateException();
+        }
+        if (micros < 0) {
+            throw new IllegalArgumentException();
+        }
+        writeMove(hex, clr);
+        writeVarint(micros);
+    }
+
+    /**
+     * End the current game
+     * @throws IllegalStateException if no game was begun
+     * @throws IOException if writing fails
+     */
+    public void endGame() throws IOException {
+        if (!inGame) {
+            throw new IllegalStateException();
+        }
+        out.write(0);
+        inGame = false;
+        games++;
+    }
+
+    /**
+     * Write a whole untimed game in one call. Safe to call from several threads
+     * at once, as long as none of them use the move by move methods.
+     * @param model the game, every move so far is written
+     * @param white name of the white player
+     * @param black name of the black player
+     * @throws IOException if writing fails
+     */
+    public synchronized void writeGame(GameModel model, String white, String black) throws IOException {
+        beginGame(model.gameEdge, white, black, false);
+        for (int i = 0; i < model.move; i++) {
+            int hex = model.plays[i];
+            writeMove(hex, model.board[hex] == GameModel.WHITE_TILE);
+        }
+        endGame();
+    }
+
+    /**
+     * @return the number of games ended so far
+     */
+    public long games() {
+        return games;
+    }
+
+    /**
+     * Push buffered games out to the stream
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * End any game still open and close the stream
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (inGame) {
+            endGame();
+        }
+        out.close();
+    }
+
+    private void writeMove(int hex, boolean clr) throws IOException {
+        if (hex < 0 || hex >= size * size) {
+            throw new IllegalArgumentException();
+        }
+        writeVarint(((long) hex << 1 | (clr == GameModel.WHITE ? 1 : 0)) + 1);
+    }
+
+    private void writeString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,307 @@
+package islands.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Counts the islands of both colors on a board from scratch in one sweep.
+ * The flood fill is iterative over a visited bitset and an int queue that are
+ * kept between calls, so labelling the same size of board again allocates nothing.
+ * Used to rebuild scores for a loaded position and to check the incremental
+ * bookkeeping in GameModel.
+ *
+ * labelParallel gets the same results for huge boards on every core: the board
+ * is cut into stripes of rows, each stripe is labelled with a union-find on the
+ * common fork-join pool, and the islands cut apart at the stripe boundaries are
+ * joined up afterwards.
+ */
+public class IslandLabeler {
+
+    // boards with fewer hexes than this are labelled in one sweep by labelParallel
+    private static final int PARALLEL_CELLS = 1 << 16;
+    // stripes per core, so a core that finishes early can take another
+    private static final int STRIPES_PER_CORE = 4;
+
+    private long[] visited = new long[0];
+    private int[] queue = new int[0];
+
+    // for labelParallel, the union-find parent of each hex (a root is its own parent)
+    // and, at each root, the board edges its island touches
+    private int[] parent = new int[0];
+    private byte[] edgesAt = new byte[0];
+
+    private int whiteIslands;
+    private int blackIslands;
+    private boolean whiteSpan;
+    private boolean blackSpan;
+
+    /**
+     * Label the islands of a game in progress
+     * @param model the game to label
+     */
+    public void label(GameModel model) {
+        label(model.board, model.topology);
+    }
+
+    /**
+     * Label the islands of a board stored one byte per hex in row-major order
+     * @param board the hexes, EMPTY, WHITE_TILE or BLACK_TILE
+     * @param edge the length/width of the board
+     */
+    void label(byte[] board, int edge) {
+        label(board, BoardTopology.of(edge));
+    }
+
+    private void label(byte[] board, BoardTopology topology) {
+        int cells = topology.edge() * topology.edge();
+        if (queue.length < cells) {
+            queue = new int[cells];
+            visited = new long[(cells + 63) >>> 6];
+        } else {
+            Arrays.fill(visited, 0, (cells + 63) >>> 6, 0L);
+        }
+        whiteIslands = 0;
+        blackIslands = 0;
+        whiteSpan = false;
+        blackSpan = false;
+
+        for (int start = 0; start < cells; start++) {
+            byte color = board[start];
+            if (color == GameModel.EMPTY || isVisited(start)) {
+                continue;
+            }
+            int edges = fill(board, topology, start, color);
+            if (color == GameModel.WHITE_TILE) {
+                whiteIslands++;
+                whiteSpan |= (edges & (GameModel.TOP | GameModel.BOTTOM)) == (GameModel.TOP | GameModel.BOTTOM);
+            } else {
+                blackIslands++;
+                blackSpan |= (edges & (GameModel.LEFT | GameModel.RIGHT)) == (GameModel.LEFT | GameModel.RIGHT);
+            }
+        }
+    }
+
+    /**
+     * Mark every hex of the island holding start as visited
+     * @return the board edges the island touches
+     */
+    private int fill(byte[] board, BoardTopology topology, int start, byte color) {
+        int head = 0;
+        int tail = 0;
+        int edges = 0;
+        markVisited(start);
+        queue[tail++] = start;
+        while (head < tail) {
+            int hex = queue[head++];
+            edges |= topology.edges(hex);
+            for (int dir = 0; dir < BoardTopology.DIRECTIONS; dir++) {
+                if (!topology.hasNeighbor(hex, dir)) {
+                    continue;
+                }
+                int next = topology.neighbor(hex, dir);
+                if (board[next] == color && !isVisited(next)) {
+                    markVisited(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Label the islands of a game in progress, using every core for large boards
+     * @param model the game to label
+     */
+    public void labelParallel(GameModel model) {
+        if (model.board.length < PARALLEL_CELLS) {
+            label(model);
+        } else {
+            labelParallel(model.board, model.gameEdge, ForkJoinPool.getCommonPoolParallelism() * STRIPES_PER_CORE);
+        }
+    }
+
+    /**
+     * Label the islands of a board in stripes of rows, in parallel
+     * @param board the hexes, EMPTY, WHITE_TILE or BLACK_TILE
+     * @param edge the length/width of the board
+     * @param stripes how many stripes to cut the board into, at most one per row
+     */
+    void labelParallel(byte[] board, int edge, int stripes) {
+        int cells = edge * edge;
+        if (parent.length < cells) {
+            parent = new int[cells];
+            edgesAt = new byte[cells];
+        }
+        int count = Math.max(1, Math.min(stripes, edge));
+        int[] firstRow = new int[count + 1];
+        for (int s = 0; s <= count; s++) {
+            firstRow[s] = (int) ((long) edge * s / count);
+        }
+
+        // each stripe only touches the entries of its own hexes
+        int[] islands = new int[2 * count];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int s = 0; s < count; s++) {
+            int stripe = s;
+            tasks.add(ForkJoinTask.adapt(() -> labelStripe(board, edge, firstRow[stripe], firstRow[stripe + 1], islands, stripe)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        whiteIslands = 0;
+        blackIslands = 0;
+        for (int s = 0; s < count; s++) {
+            whiteIslands += islands[2 * s];
+            blackIslands += islands[2 * s + 1];
+        }
+        // join the islands cut by each boundary, through the two neighbours in the row above
+        for (int s = 1; s < count; s++) {
+            int row = firstRow[s];
+            for (int col = 0; col < edge; col++) {
+                int hex = row * edge + col;
+                byte color = board[hex];
+                if (color == GameModel.EMPTY) {
+                    continue;
+                }
+                int joined = 0;
+                if (board[hex - edge] == color && union(hex, hex - edge)) {
+                    joined++;
+                }
+                if (col > 0 && board[hex - edge - 1] == color && union(hex, hex - edge - 1)) {
+                    joined++;
+                }
+                if (color == GameModel.WHITE_TILE) {
+                    whiteIslands -= joined;
+                } else {
+                    blackIslands -= joined;
+                }
+            }
+        }
+
+        // a spanning island touches the top row or the left column
+        whiteSpan = false;
+        blackSpan = false;
+        for (int i = 0; i < edge; i++) {
+            if (board[i] == GameModel.WHITE_TILE && (edgesAt[find(i)] & GameModel.BOTTOM) != 0) {
+                whiteSpan = true;
+            }
+            int left = i * edge;
+            if (board[left] == GameModel.BLACK_TILE && (edgesAt[find(left)] & GameModel.RIGHT) != 0) {
+                blackSpan = true;
+            }
+        }
+    }
+
+    /**
+     * Join the hexes of rows from to to - 1 into islands, joining each hex to
+     * its neighbours already seen: left, up and up-left
+     * @param islands where to put the stripe's white and black island counts
+     * @param stripe the stripe's index into islands
+     */
+    private void labelStripe(byte[] board, int edge, int from, int to, int[] islands, int stripe) {
+        int white = 0;
+        int black = 0;
+        for (int row = from; row < to; row++) {
+            for (int col = 0; col < edge; col++) {
+                int hex = row * edge + col;
+                byte color = board[hex];
+                if (color == GameModel.EMPTY) {
+                    continue;
+                }
+                parent[hex] = hex;
+                int edges = 0;
+                if (row == 0) {edges |= GameModel.TOP;}
+                if (row == edge - 1) {edges |= GameModel.BOTTOM;}
+                if (col == 0) {edges |= GameModel.LEFT;}
+                if (col == edge - 1) {edges |= GameModel.RIGHT;}
+                edgesAt[hex] = (byte) edges;
+                // a new island, less one for each island it joins
+                int islandsAdded = 1;
+                if (col > 0 && board[hex - 1] == color && union(hex, hex - 1)) {
+                    islandsAdded--;
+                }
+                if (row > from) {
+                    if (board[hex - edge] == color && union(hex, hex - edge)) {
+                        islandsAdded--;
+                    }
+                    if (col > 0 && board[hex - edge - 1] == color && union(hex, hex - edge - 1)) {
+                        islandsAdded--;
+                    }
+                }
+                if (color == GameModel.WHITE_TILE) {
+                    white += islandsAdded;
+                } else {
+                    black += islandsAdded;
+                }
+            }
+        }
+        islands[2 * stripe] = white;
+        islands[2 * stripe + 1] = black;
+    }
+
+    /**
+     * The root of a hex's island, halving the path on the way
+     */
+    private int find(int hex) {
+        while (parent[hex] != hex) {
+            parent[hex] = parent[parent[hex]];
+            hex = parent[hex];
+        }
+        return hex;
+    }
+
+    /**
+     * Join the islands of two hexes under the lower root
+     * @return false if they were already one island
+     */
+    private boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        int root = Math.min(rootA, rootB);
+        int child = Math.max(rootA, rootB);
+        parent[child] = root;
+        edgesAt[root] |= edgesAt[child];
+        return true;
+    }
+
+    private boolean isVisited(int hex) {
+        return (visited[hex >>> 6] & (1L << hex)) != 0;
+    }
+
+    private void markVisited(int hex) {
+        visited[hex >>> 6] |= 1L << hex;
+    }
+
+    /**
+     * @return the number of white islands found by the last label call
+     */
+    public int whiteIslands() {
+        return whiteIslands;
+    }
+
+    /**
+     * @return the number of black islands found by the last label call
+     */
+    public int blackIslands() {
+        return blackIslands;
+    }
+
+    /**
+     * @return true if a white island touched the top and bottom in the last label call
+     */
+    public boolean whiteSpan() {
+        return whiteSpan;
+    }
+
+    /**
+     * @return true if a black island touched the left and right in the last label call
+     */
+    public boolean blackSpan() {
+        return blackSpan;
+    }
+}
@@ -0,0 +1,360 @@
+package islands.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A Monte Carlo Tree Search player. Every worker thread grows its own UCT tree
+ * from a private copy of the game (root parallelization), so threads never
+ * share node statistics and need no locks; the visit counts of the root moves
+ * are summed across threads to pick the move.
+ *
+ * The clock is also read during playouts, so a playout on a huge board can't
+ * run past the time budget; one cut short is dropped and ends the search.
+ *
+ * chooseMove may be called from several threads at once, e.g. by a game still
+ * finishing its move after a new game has started: each call splits its own
+ * random numbers and the statistics of the last move are replaced as a whole.
+ */
+public class MonteCarloPlayer implements Player {
+
+    /** the largest board on which a playout takes a small part of a typical time budget */
+    public static final int LARGEST_BOARD = 100;
+
+    private static final double EXPLORATION = Math.sqrt(2);
+    // the clock is read once per this many playout moves
+    private static final int CLOCK_MASK = 255;
+
+    private final int threads;
+    private final long moveNanos;
+    private final long playoutsPerMove;
+    private final ExecutorService workers;
+    private final SplittableRandom seeds;
+
+    // the statistics of the last move, replaced whole so readers never mix two moves
+    private volatile LastMove last = new LastMove(0, 0);
+
+    /**
+     * Create a player that searches until the time or the playout budget runs out
+     * @param threads the number of search threads
+     * @param moveMillis time allowed per move in milliseconds, 0 for no limit
+     * @param playoutsPerMove playouts allowed per move across all threads, 0 for no limit
+     * @param seed seed for the random playouts
+     * @throws IllegalArgumentException if there are no threads or neither budget is set
+     */
+    public MonteCarloPlayer(int threads, long moveMillis, long playoutsPerMove, long seed) {
+        if (threads < 1 || (moveMillis <= 0 && playoutsPerMove <= 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.threads = threads;
+        this.moveNanos = moveMillis * 1_000_000L;
+        this.playoutsPerMove = playoutsPerMove;
+        this.seeds = new SplittableRandom(seed);
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "mcts-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Create a player that uses every core for the given time per move
+     * @param moveMillis time allowed per move in milliseconds
+     */
+    public MonteCarloPlayer(long moveMillis) {
+        this(Runtime.getRuntime().availableProcessors(), moveMillis, 0, System.nanoTime());
+    }
+
+    @Override
+    public int chooseMove(GameModel model, boolean clr) {
+        long start = System.nanoTime();
+        long deadline = moveNanos > 0 ? start + moveNanos : Long.MAX_VALUE;
+        SplittableRandom rand;
+        synchronized (seeds) {
+            rand = seeds.split();
+        }
+
+        List<Future<Search>> results = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            long budget = Long.MAX_VALUE;
+            if (playoutsPerMove > 0) {
+                budget = playoutsPerMove / threads + (t < playoutsPerMove % threads ? 1 : 0);
+            }
+            Search search = new Search(new GameModel(model), clr, rand.split(), deadline, budget);
+            results.add(workers.submit(search::run, search));
+        }
+
+        // add up how often each root move was visited
+        long[] visits = new long[model.board.length];
+        long playouts = 0;
+        for (Future<Search> result : results) {
+            Search search = join(result);
+            playouts += search.playouts;
+            Node root = search.root;
+            for (int i = 0; i < root.childCount; i++) {
+                visits[root.children[i].move] += root.children[i].visits;
+            }
+        }
+        last = new LastMove(playouts, System.nanoTime() - start);
+
+        int best = -1;
+        for (int hex = 0; hex < visits.length; hex++) {
+            if (model.board[hex] == GameModel.EMPTY && (best < 0 || visits[hex] > visits[best])) {
+                best = hex;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the number of playouts run for the last move
+     */
+    public long lastPlayouts() {
+        return last.playouts;
+    }
+
+    /**
+     * @return playouts per second across all threads for the last move
+     */
+    public double lastPlayoutsPerSecond() {
+        LastMove move = last;
+        return move.nanos == 0 ? 0 : move.playouts * 1e9 / move.nanos;
+    }
+
+    /**
+     * Stop the worker threads, the player can't be used afterwards
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * The playouts run for one move and how long the move took
+     */
+    private static class LastMove {
+        final long playouts;
+        final long nanos;
+
+        LastMove(long playouts, long nanos) {
+            this.playouts = playouts;
+            this.nanos = nanos;
+        }
+    }
+
+    private static Search join(Future<Search> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * One thread's search over its own copy of the game
+     */
+    private static class Search {
+        final GameModel game;
+        final boolean rootClr;
+        final SplittableRandom rand;
+        final long deadline;
+        final long budget;
+        final Node root;
+        long playouts;
+
+        Search(GameModel game, boolean rootClr, SplittableRandom rand, long deadline, long budget) {
+            this.game = game;
+            this.rootClr = rootClr;
+            this.rand = rand;
+            this.deadline = deadline;
+            this.budget = budget;
+            this.root = new Node(-1, null, !rootClr);
+        }
+
+        void run() {
+            while (playouts < budget && System.nanoTime() < deadline) {
+                if (!iterate()) {
+                    break;
+                }
+                playouts++;
+            }
+        }
+
+        /**
+         * Select down the tree, expand one node, play out randomly and back up the result
+         * @return false if the time ran out during the playout, which leaves the game
+         *         part way through the playout and the tree without its result
+         */
+        boolean iterate() {
+            Node node = root;
+            boolean clr = rootClr;
+            int played = 0;
+            while (node.untriedCount(game) == 0 && node.childCount > 0) {
+                node = node.select();
+                play(node.move, clr);
+                clr = !clr;
+                played++;
+            }
+            if (node.untriedCount(game) > 0) {
+                int hex = node.pickUntried(game, rand);
+                play(hex, clr);
+                node = node.addChild(hex, clr);
+                clr = !clr;
+                played++;
+            }
+            int moves = playout(clr);
+            if (moves < 0) {
+                // the search is over and its copy of the game isn't used again
+                return false;
+            }
+            played += moves;
+
+            int white = game.whiteScore();
+            int black = game.blackScore();
+            for (Node n = node; n != null; n = n.parent) {
+                n.visits++;
+                int mine = n.mover == GameModel.WHITE ? white : black;
+                int theirs = n.mover == GameModel.WHITE ? black : white;
+                n.wins += mine > theirs ? 1 : mine == theirs ? 0.5 : 0;
+            }
+            for (int i = 0; i < played; i++) {
+                game.unmakePlay();
+            }
+            return true;
+        }
+
+        /**
+         * Play random moves until the game ends or the time runs out
+         * @return the number of moves played, or -1 if the time ran out first
+         */
+        int playout(boolean clr) {
+            int played = 0;
+            boolean done = game.isGameOver();
+            while (!done) {
+                if ((played & CLOCK_MASK) == CLOCK_MASK && System.nanoTime() > deadline) {
+                    return -1;
+                }
+                done = play(game.randomEmptyHex(rand), clr);
+                clr = !clr;
+                played++;
+            }
+            return played;
+        }
+
+        boolean play(int hex, boolean clr) {
+            return game.makePlay(hex / game.gameEdge, hex % game.gameEdge, clr);
+        }
+    }
+
+    /**
+     * A position in a search tree, reached by playing move
+     */
+    private static class Node {
+        final int move;
+        final Node parent;
+        // the color that played move, wins are counted for this side
+        final boolean mover;
+        // one bit per hex for the moves expanded into children, made on the first expansion
+        long[] expanded;
+        // moves not yet expanded, only listed once most of them have been,
+        // until then they are drawn from the game's empty hexes
+        int[] untried;
+        int untriedCount;
+        Node[] children = new Node[2];
+        int childCount;
+        int visits;
+        double wins;
+
+        Node(int move, Node parent, boolean mover) {
+            this.move = move;
+            this.parent = parent;
+            this.mover = mover;
+        }
+
+        /**
+         * @param game the game, currently at this node's position
+         * @return the number of moves from here that have no child yet
+         */
+        int untriedCount(GameModel game) {
+            return game.isGameOver() ? 0 : game.emptyCount() - childCount;
+        }
+
+        /**
+         * Pick an untried move at random and mark it expanded, there must be one
+         * @param game the game, currently at this node's position
+         * @return the hex as row * gameEdge + col
+         */
+        int pickUntried(GameModel game, SplittableRandom rand) {
+            if (expanded == null) {
+                expanded = new long[(game.board.length + 63) >>> 6];
+            }
+            if (untried == null && childCount * 2 < game.emptyCount()) {
+                // most empty hexes are untried, so this takes fewer than two tries on average
+                while (true) {
+                    int hex = game.randomEmptyHex(rand);
+                    if (!isExpanded(hex)) {
+                        return expand(hex);
+                    }
+                }
+            }
+            if (untried == null) {
+                untriedCount = 0;
+                untried = new int[game.emptyCount() - childCount];
+                for (int i = 0; i < game.emptyCount(); i++) {
+                    int hex = game.emptyHex(i);
+                    if (!isExpanded(hex)) {
+                        untried[untriedCount++] = hex;
+                    }
+                }
+            }
+            int pick = rand.nextInt(untriedCount);
+            int hex = untried[pick];
+            untried[pick] = untried[--untriedCount];
+            return expand(hex);
+        }
+
+        private boolean isExpanded(int hex) {
+            return (expanded[hex >>> 6] & 1L << hex) != 0;
+        }
+
+        private int expand(int hex) {
+            expanded[hex >>> 6] |= 1L << hex;
+            return hex;
+        }
+
+        Node addChild(int hex, boolean clr) {
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            Node child = new Node(hex, this, clr);
+            children[childCount++] = child;
+            return child;
+        }
+
+        /**
+         * @return the child with the best upper confidence bound
+         */
+        Node select() {
+            double logVisits = Math.log(visits);
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < childCount; i++) {
+                Node child = children[i];
+                double value = child.wins / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package islands.backend;
+
+/**
+ * A player that looks its moves up in a SolvedTable, so it never throws away
+ * a win or a tie and answers at once. Positions the table doesn't hold, on
+ * another board size or after a side has played out of turn, are passed on to
+ * a fallback player.
+ */
+public class PerfectPlayer implements Player {
+
+    private final SolvedTable table;
+    private final Player fallback;
+
+    /**
+     * Create a player for the board size of a table
+     * @param table the solved positions
+     * @param fallback the player for positions the table doesn't hold
+     */
+    public PerfectPlayer(SolvedTable table, Player fallback) {
+        this.table = table;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int chooseMove(GameModel model, boolean clr) {
+        // the table is for white moving on even moves
+        if ((model.move % 2 == 0) == (clr == GameModel.WHITE) && table.contains(model)) {
+            return table.bestMove(model);
+        }
+        return fallback.chooseMove(model, clr);
+    }
+}
@@ -0,0 +1,15 @@
+package islands.backend;
+
+/**
+ * A computer player that picks moves for one side of the game
+ */
+public interface Player {
+
+    /**
+     * Pick the next play for the given color. The model must be left as it was found.
+     * @param model the game in progress, which is not over
+     * @param clr true for WHITE and false for BLACK
+     * @return the chosen hex as row * model.gameEdge + col
+     */
+    int chooseMove(GameModel model, boolean clr);
+}
@@ -0,0 +1,30 @@
+package islands.backend;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bulk copies of int arrays to and from byte buffers, used to snapshot
+ * positions. The copies go through an int view of the buffer, so they run as
+ * one memory copy when the buffer is in native byte order.
+ */
+final class Snapshots {
+
+    private Snapshots() {
+    }
+
+    /**
+     * Write the first length values at the buffer's position and move past them
+     */
+    static void putInts(ByteBuffer out, int[] values, int length) {
+        out.asIntBuffer().put(values, 0, length);
+        out.position(out.position() + 4 * length);
+    }
+
+    /**
+     * Read length values from the buffer's position into values and move past them
+     */
+    static void getInts(ByteBuffer in, int[] values, int length) {
+        in.asIntBuffer().get(values, 0, length);
+        in.position(in.position() + 4 * length);
+    }
+}
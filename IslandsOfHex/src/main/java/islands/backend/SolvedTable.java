@@ -0,0 +1,221 @@
+package islands.backend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The outcome with best play and a best move for every position of a small
+ * board, as found by ExactSolver, held in memory or memory-mapped from a file.
+ *
+ * Positions are numbered in base 3 with one digit per hex, 0 for empty, 1 for
+ * white and 2 for black, hex 0 being the lowest digit. The table has one byte
+ * for each number: the outcome for the side to move plus 2 in the low two bits,
+ * and the best move plus 1 in the rest (0 once the game is over). A byte of 0
+ * is a position that can't come up in a game. White moves first and the sides
+ * take turns, so white is to move when an even number of pieces have been played.
+ *
+ * The file is the bytes "IOHT", a version byte, the board size byte and then
+ * the table, so it can be mapped and used without reading it in.
+ */
+public class SolvedTable {
+
+    /** the side to move loses with best play */
+    public static final int LOSS = -1;
+    /** best play ends in a tie */
+    public static final int TIE = 0;
+    /** the side to move wins with best play */
+    public static final int WIN = 1;
+
+    static final byte[] MAGIC = {'I', 'O', 'H', 'T'};
+    static final int VERSION = 1;
+    static final int HEADER = MAGIC.length + 2;
+
+    private final int size;
+    private final ByteBuffer entries;
+    // 3 to the power of each hex, the value of its digit
+    private final int[] powers;
+
+    /**
+     * Wrap a table of entries
+     * @param size the square size of the board
+     * @param entries one byte for each of the positions(size) positions
+     */
+    SolvedTable(int size, ByteBuffer entries) {
+        this.size = size;
+        this.entries = entries;
+        this.powers = powers(size);
+    }
+
+    /**
+     * Map a table written by write, without reading it in
+     * @param file the table to map
+     * @return the table
+     * @throws IOException if the file can't be read or isn't a solved table
+     */
+    public static SolvedTable map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER) {
+                throw new IOException("not a solved table: " + file);
+            }
+            // the mapping stays valid once the channel is closed
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            for (byte b : MAGIC) {
+                if (mapped.get() != b) {
+                    throw new IOException("not a solved table: " + file);
+                }
+            }
+            if (mapped.get() != VERSION) {
+                throw new IOException("unsupported solved table version: " + file);
+            }
+            int size = mapped.get();
+            if (size < 1 || size > ExactSolver.MAX_SIZE || fileSize != HEADER + positions(size)) {
+                throw new IOException("bad solved table size: " + file);
+            }
+            return new SolvedTable(size, mapped.slice(HEADER, positions(size)));
+        }
+    }
+
+    /**
+     * Write the table to a file that map can read back, replacing any file already there
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).put(MAGIC).put((byte) VERSION).put((byte) size).flip();
+            ByteBuffer body = entries.duplicate().clear();
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[] {header, body});
+            }
+        }
+    }
+
+    /**
+     * @return the square size of the board
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Is a game's position in the table
+     * @param model the game
+     * @return true for a board of the table's size in a position that can come up in a game
+     */
+    public boolean contains(GameModel model) {
+        return model.gameEdge == size && entry(index(model)) != 0;
+    }
+
+    /**
+     * The result of a game with best play from here on
+     * @param model the game, in a position the table contains
+     * @return WIN, TIE or LOSS for the side to move
+     * @throws IllegalArgumentException if the table doesn't contain the position
+     */
+    public int outcome(GameModel model) {
+        return outcomeOf(checkedEntry(model));
+    }
+
+    /**
+     * A move that keeps the best outcome for the side to move, the lowest hex if there are several
+     * @param model the game, in a position the table contains
+     * @return the hex as row * size + col, or -1 if the game is over
+     * @throws IllegalArgumentException if the table doesn't contain the position
+     */
+    public int bestMove(GameModel model) {
+        return moveOf(checkedEntry(model));
+    }
+
+    /**
+     * Does a move keep the best outcome for the side to move, e.g. to grade another player's choice
+     * @param model the game, in a position the table contains that isn't over
+     * @param hex the move as row * size + col, which must be empty
+     * @return true if the move is as good as bestMove
+     * @throws IllegalArgumentException if the table doesn't contain the position or the hex isn't empty
+     */
+    public boolean isBest(GameModel model, int hex) {
+        int entry = checkedEntry(model);
+        if (hex < 0 || hex >= model.board.length || model.board[hex] != GameModel.EMPTY) {
+            throw new IllegalArgumentException();
+        }
+        int digit = model.move % 2 == 0 ? 1 : 2;
+        return -outcomeOf(entry(index(model) + digit * powers[hex])) == outcomeOf(entry);
+    }
+
+    /**
+     * @return the number of positions in the table that can come up in a game
+     */
+    public long solvedCount() {
+        long count = 0;
+        for (int i = 0; i < entries.limit(); i++) {
+            if (entries.get(i) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of positions of a board, 3 to the number of hexes
+     */
+    static int positions(int size) {
+        int positions = 1;
+        for (int hex = 0; hex < size * size; hex++) {
+            positions *= 3;
+        }
+        return positions;
+    }
+
+    /**
+     * @return 3 to the power of each hex of a board
+     */
+    static int[] powers(int size) {
+        int[] powers = new int[size * size];
+        int power = 1;
+        for (int hex = 0; hex < powers.length; hex++) {
+            powers[hex] = power;
+            power *= 3;
+        }
+        return powers;
+    }
+
+    static int entryOf(int outcome, int move) {
+        return (outcome + 2) | (move + 1) << 2;
+    }
+
+    static int outcomeOf(int entry) {
+        return (entry & 3) - 2;
+    }
+
+    static int moveOf(int entry) {
+        return (entry >> 2) - 1;
+    }
+
+    private int index(GameModel model) {
+        int index = 0;
+        for (int hex = 0; hex < model.board.length; hex++) {
+            byte tile = model.board[hex];
+            if (tile != GameModel.EMPTY) {
+                index += (tile == GameModel.WHITE_TILE ? 1 : 2) * powers[hex];
+            }
+        }
+        return index;
+    }
+
+    private int entry(int index) {
+        return entries.get(index) & 0xFF;
+    }
+
+    private int checkedEntry(GameModel model) {
+        int entry = model.gameEdge == size ? entry(index(model)) : 0;
+        if (entry == 0) {
+            throw new IllegalArgumentException();
+        }
+        return entry;
+    }
+}
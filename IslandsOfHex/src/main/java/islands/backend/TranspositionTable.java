@@ -0,0 +1,228 @@
+package islands.backend;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of search results keyed by position hash, shared by any
+ * number of search threads without locks.
+ *
+ * Each entry is two longs, the data and the hash XORed with the data. Threads
+ * write the two halves separately, so a reader may see halves of two different
+ * stores; the XOR then no longer gives back the probed hash and the entry is
+ * treated as a miss instead of returning torn data.
+ *
+ * The data packs a score, a search depth, a bound type and a best move into
+ * one long, see pack.
+ */
+public class TranspositionTable {
+
+    /** the score is exact */
+    public static final int EXACT = 1;
+    /** the score is a lower bound (the search failed high) */
+    public static final int LOWER = 2;
+    /** the score is an upper bound (the search failed low) */
+    public static final int UPPER = 3;
+
+    /** returned by probe when the position is not stored */
+    public static final long MISS = 0;
+
+    /** the most entries a table can hold, two longs each still fit in one array */
+    public static final int MAX_CAPACITY = 1 << 29;
+
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] entries;
+    private final int mask;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Create a table holding a power of two entries
+     * @param capacity the minimum number of entries, rounded up to a power of two
+     * @throws IllegalArgumentException for a capacity below 1 or above MAX_CAPACITY
+     */
+    public TranspositionTable(int capacity) {
+        int size = entriesFor(capacity);
+        entries = new long[2 * size];
+        mask = size - 1;
+    }
+
+    /**
+     * @param capacity the minimum number of entries
+     * @return the capacity rounded up to a power of two
+     * @throws IllegalArgumentException for a capacity below 1 or above MAX_CAPACITY
+     */
+    static int entriesFor(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException();
+        }
+        int size = Integer.highestOneBit(capacity);
+        return size < capacity ? size << 1 : size;
+    }
+
+    /**
+     * Look up a position
+     * @param hash the position's Zobrist hash
+     * @return the packed data stored for the position, or MISS
+     */
+    public long probe(long hash) {
+        probes.increment();
+        int slot = slot(hash);
+        long check = (long) ENTRIES.getOpaque(entries, slot);
+        long data = (long) ENTRIES.getOpaque(entries, slot + 1);
+        if (data != MISS && (check ^ data) == hash) {
+            hits.increment();
+            return data;
+        }
+        if (data != MISS) {
+            collisions.increment();
+        }
+        return MISS;
+    }
+
+    /**
+     * Store a search result. An entry for a different position is always
+     * replaced; one for the same position only by a search at least as deep.
+     * @param hash the position's Zobrist hash
+     * @param data the result, as returned by pack
+     */
+    public void store(long hash, long data) {
+        int slot = slot(hash);
+        long check = (long) ENTRIES.getOpaque(entries, slot);
+        long old = (long) ENTRIES.getOpaque(entries, slot + 1);
+        if (old != MISS && (check ^ old) == hash && depth(old) > depth(data)) {
+            return;
+        }
+        ENTRIES.setOpaque(entries, slot, hash ^ data);
+        ENTRIES.setOpaque(entries, slot + 1, data);
+        stores.increment();
+    }
+
+    /**
+     * Empty the table and reset its counters
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            ENTRIES.setOpaque(entries, i, 0L);
+        }
+        probes.reset();
+        hits.reset();
+        collisions.reset();
+        stores.reset();
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of probes since the table was made or cleared
+     */
+    public long probes() {
+        return probes.sum();
+    }
+
+    /**
+     * @return the number of probes that found their position
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of probes that found another position in their slot
+     */
+    public long collisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * @return the number of entries written
+     */
+    public long stores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return the fraction of probes that hit
+     */
+    public double hitRate() {
+        long n = probes.sum();
+        return n == 0 ? 0 : (double) hits.sum() / n;
+    }
+
+    /**
+     * @return the fraction of probes that found another position in their slot
+     */
+    public double collisionRate() {
+        long n = probes.sum();
+        return n == 0 ? 0 : (double) collisions.sum() / n;
+    }
+
+    /**
+     * Pack a search result into one long, never equal to MISS
+     * @param score the score, within 30 signed bits
+     * @param depth the depth searched, 0 to 255
+     * @param bound EXACT, LOWER or UPPER
+     * @param move the best move as row * gameEdge + col, -1 for none, below 2^24 - 1
+     * @return the packed data
+     */
+    public static long pack(int score, int depth, int bound, int move) {
+        return (long) score << 34
+                | (long) (depth & 0xFF) << 26
+                | (long) (bound & 0x3) << 24
+                | (move + 1) & 0xFFFFFFL;
+    }
+
+    /**
+     * @param data packed data
+     * @return the score
+     */
+    public static int score(long data) {
+        return (int) (data >> 34);
+    }
+
+    /**
+     * @param data packed data
+     * @return the depth searched
+     */
+    public static int depth(long data) {
+        return (int) (data >>> 26) & 0xFF;
+    }
+
+    /**
+     * @param data packed data
+     * @return EXACT, LOWER or UPPER
+     */
+    public static int bound(long data) {
+        return (int) (data >>> 24) & 0x3;
+    }
+
+    /**
+     * @param data packed data
+     * @return the best move, -1 for none
+     */
+    public static int move(long data) {
+        return (int) (data & 0xFFFFFF) - 1;
+    }
+
+    private int slot(long hash) {
+        return slot(hash, mask);
+    }
+
+    /**
+     * @return the index of the first long of a hash's entry in a table of mask + 1 entries
+     */
+    static int slot(long hash, int mask) {
+        // fold in the high half so every bit of the hash helps pick the slot
+        return (int) ((hash ^ hash >>> 32) & mask) << 1;
+    }
+}
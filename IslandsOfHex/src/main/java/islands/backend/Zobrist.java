@@ -0,0 +1,29 @@
+package islands.backend;
+
+/**
+ * Zobrist keys for hashing positions. A position's hash is the XOR of the key
+ * of every piece on the board, so it can be updated in O(1) as pieces are
+ * played and taken back. Keys are made by mixing the hex and color with
+ * SplitMix64 rather than looked up in a random table, which would take 16 bytes
+ * per hex on large boards.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    private Zobrist() {
+    }
+
+    /**
+     * The key of a piece
+     * @param hex the hex as row * gameEdge + col
+     * @param clr true for WHITE and false for BLACK
+     * @return a pseudo-random 64-bit key
+     */
+    public static long key(int hex, boolean clr) {
+        long z = SEED + (2L * hex + (clr ? 1 : 0) + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
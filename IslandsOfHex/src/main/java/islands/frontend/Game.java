@@ -1,5 +1,6 @@
 package islands.frontend;
 
+import islands.backend.MonteCarloPlayer;
 import islands.middle.GameController;
 
 import javax.swing.*;
@@ -27,10 +28,14 @@ public class Game extends JPanel implements GameController.ViewDelegate {
     private JRadioButton size11;
 
     private JRadioButton size25;
+    private JRadioButton size100;
+    private JRadioButton size2500;
 
     private ButtonGroup group;
 
     private JButton simulateGame;
+    private JCheckBox computerBlack;
+    private MonteCarloPlayer computer;
     private JLabel timer;
     private JLabel winner;
 
@@ -62,14 +67,23 @@ public class Game extends JPanel implements GameController.ViewDelegate {
         size11.addActionListener(v->resetGridDimension(11));
         size25 = new JRadioButton("25");
         size25.addActionListener(v->resetGridDimension(25));
+        size100 = new JRadioButton("100");
+        size100.addActionListener(v->resetGridDimension(100));
+        size2500 = new JRadioButton("2500");
+        size2500.addActionListener(v->resetGridDimension(2500));
 
 
         simulateGame = new JButton("new simulated game");
         simulateGame.addActionListener(v->toggleSimulationGame());
 
+        computerBlack = new JCheckBox("computer plays black");
+        computerBlack.addActionListener(v->resetGridDimension(gridDimension));
+
         group.add(size5);
         group.add(size11);
         group.add(size25);
+        group.add(size100);
+        group.add(size2500);
 
         timer = new JLabel("time: ");
         winner = new JLabel("");
@@ -88,7 +102,10 @@ public class Game extends JPanel implements GameController.ViewDelegate {
         southPan.add(size5);
         southPan.add(size11);
         southPan.add(size25);
+        southPan.add(size100);
+        southPan.add(size2500);
         southPan.add(simulateGame);
+        southPan.add(computerBlack);
 
         //southPan.add(timer);
         southPan.add(turnLabel);
@@ -113,26 +130,32 @@ public class Game extends JPanel implements GameController.ViewDelegate {
      */
     private void initGame(boolean simulation) {
 
-        if (gridDimension > 20) {
-            Hexagon.hexagonLength = 10;
-        }
-        else if(gridDimension > 10)
-            Hexagon.hexagonLength = 20;
-        else if(gridDimension > 6)
-            Hexagon.hexagonLength = 25;
-        else
-            Hexagon.hexagonLength = 35;
         if (hexGrid != null) {
             remove(hexGrid);
         }
-        hexGrid = new HexGrid(gridDimension);
+        hexGrid = new HexGrid(gridDimension, HexGrid.hexagonLengthFor(gridDimension));
+        // big boards start zoomed out to show all of them
+        hexGrid.zoomToFit();
 
         add(hexGrid, BorderLayout.CENTER);
         if (gc !=null) {
             gc.stopAll();
         }
-        gc = new GameController(simulation);
+        // boards this big would take days at the usual pace, so their simulations run flat out
+        gc = new GameController(simulation, gridDimension > 100 ? 0 : GameController.SIMULATION_DELAY);
         gc.setSize(gridDimension);
+        // a single playout on a bigger board would use up the computer's whole turn
+        boolean computerFits = gridDimension <= MonteCarloPlayer.LARGEST_BOARD;
+        computerBlack.setEnabled(computerFits);
+        if (!computerFits) {
+            computerBlack.setSelected(false);
+        }
+        if (computerBlack.isSelected()) {
+            if (computer == null) {
+                computer = new MonteCarloPlayer(200);
+            }
+            gc.setPlayer(GameController.BLACK, computer);
+        }
         gc.setDelegate(this);
 
     }
@@ -158,7 +181,6 @@ public class Game extends JPanel implements GameController.ViewDelegate {
 
         //is the current game a simulation game
         boolean isSimulatedGame = gc.isSimulationGame();
-        System.out.println(isSimulatedGame);
         if(isSimulatedGame) {
             simulateGame.setText("simulated game");
         }
@@ -1,50 +1,221 @@
 package islands.frontend;
 
+import islands.metrics.FlightRecording;
+import islands.metrics.LatencyHistogram;
+import islands.metrics.MetricsRegistry;
+import islands.metrics.PaintEvent;
 import islands.middle.GameController;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
 import java.util.Optional;
 
 /**
  * GUI grid of the hexagon tiles
+ *
+ * The board can be zoomed with the mouse wheel and moved by dragging with the
+ * right or middle button. Only the hexagons in view are drawn. Once they are
+ * too small to make out, each block of pixels is drawn instead in the average
+ * color of the hexagons centered in it, so boards of any size can be watched.
  */
 public class HexGrid extends JComponent{
 
+    /** name of the paint time metric */
+    public static final String REPAINT = "repaint";
+
+    // hexagons narrower than this many pixels are drawn as blocks
+    private static final int DETAIL_PIXELS = 4;
+    private static final double MIN_SCALE = 1.0 / 1024;
+    private static final double MAX_SCALE = 16;
+    // how much one notch of the mouse wheel zooms
+    private static final double ZOOM_STEP = 1.25;
+
+    private final LatencyHistogram paintTime = MetricsRegistry.global().histogram(REPAINT);
+
     int size;
-    Hexagon[][] hexagons;
+    // what is in each hex, row * size + col, with GameController's WHITE and BLACK or 0 for empty
+    byte[] colors;
+    // the one shape every hexagon is drawn with
+    final Hexagon hexagon;
+
+    // the layout of the board, kept so clicks can be mapped back to hexagons
+    private final int length;
+    private final int topLeftX;
+    private final int topLeftY;
+
+    // the drawn board, kept between paints so a move only redraws its own hexagon.
+    // made on the first paint and again if the component grows past it or the view changes
+    private BufferedImage board;
+
+    // the view, a board point x,y is drawn at x * scale + offsetX, y * scale + offsetY
+    private double scale = 1;
+    private double offsetX;
+    private double offsetY;
+
+    // the side of the blocks the board image is drawn in, 0 while hexagons are drawn
+    private int block;
+    private int blocksAcross;
+    // for each block, the number of hexagons centered in it and how many are white and black
+    private int[] cells;
+    private int[] whites;
+    private int[] blacks;
 
     /**
-     * Create a Hex Grid with size num x num
+     * Create a Hex Grid with size num x num, with hexagons sized to fit the game
      * @param num
      */
     public HexGrid(int num) {
-        setPreferredSize(new Dimension(600,800));
-        size = num;
-        hexagons = new Hexagon[size][size];
-        makeHexagons();
+        this(num, hexagonLengthFor(num));
     }
 
     /**
-     * Create the hexagon objects
+     * Create a Hex Grid with size num x num
+     * @param num
+     * @param hexagonLength the distance from the center of a hexagon to its corners
      */
-    private void makeHexagons() {
+    public HexGrid(int num, int hexagonLength) {
+        setPreferredSize(new Dimension(600,800));
+        size = num;
+        length = hexagonLength;
+        hexagon = Hexagon.ofLength(length);
+        colors = new byte[size * size];
         //1.5 and .75
-        int topLeftY = (int) (Game.BOARD_HEIGHT/ 2.0 - 1.5 * size* (Hexagon.hexagonLength- Hexagon.hexagonLength/2));
-        int topLeftX = (int) (Game.BOARD_WIDTH/ 2.0 - 0.75 * size* (Hexagon.hexagonLength+Hexagon.hexagonLength/3));
-        //iterate the columns first since x is fixed
-        //per column
-        for(int col = 0; col < size; col++) {
-            int x = topLeftX + col * (Hexagon.hexagonLength - 1) * 2;
-            int y = topLeftY - col * (Hexagon.hexagonLength - 2);
-            //int y = startY - row * (Hexagon.hexagonLength-1) * 2;
-            //int x = startX + row * (Hexagon.hexagonLength -2);
-            for(int row = 0; row < size; row++) {
-                int columnY = y + row * (Hexagon.hexagonLength) * 2;
-
-                hexagons[row][col] = new Hexagon(x, columnY, Color.LIGHT_GRAY);
+        topLeftY = (int) (Game.BOARD_HEIGHT/ 2.0 - 1.5 * size* (length- length/2));
+        topLeftX = (int) (Game.BOARD_WIDTH/ 2.0 - 0.75 * size* (length+length/3));
+
+        MouseAdapter view = new MouseAdapter() {
+            private Point last;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                last = e.getPoint();
             }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                // the left button plays moves
+                if (last != null && !SwingUtilities.isLeftMouseButton(e)) {
+                    pan(e.getX() - last.x, e.getY() - last.y);
+                    last = e.getPoint();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(view);
+        addMouseMotionListener(view);
+        addMouseWheelListener(view);
+    }
+
+    /**
+     * The hexagon size for a board, smaller for bigger boards
+     * @param size the square size of the board
+     * @return the distance from the center of a hexagon to its corners
+     */
+    public static int hexagonLengthFor(int size) {
+        if (size > 20)
+            return 10;
+        else if (size > 10)
+            return 20;
+        else if (size > 6)
+            return 25;
+        else
+            return 35;
+    }
+
+    /**
+     * Zoom the view, keeping the board where it is under a screen point
+     * @param factor how much bigger to draw the board, under 1 to zoom out
+     * @param x the screen x to zoom around
+     * @param y the screen y to zoom around
+     */
+    public void zoom(double factor, int x, int y) {
+        double next = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        offsetX = x - (x - offsetX) * next / scale;
+        offsetY = y - (y - offsetY) * next / scale;
+        scale = next;
+        viewChanged();
+    }
+
+    /**
+     * Move the view
+     * @param dx pixels to move the board right
+     * @param dy pixels to move the board down
+     */
+    public void pan(int dx, int dy) {
+        offsetX += dx;
+        offsetY += dy;
+        viewChanged();
+    }
+
+    /**
+     * Zoom out until the whole board is in view and center it, if it isn't in view already
+     */
+    public void zoomToFit() {
+        int width = getWidth() > 0 ? getWidth() : Game.BOARD_WIDTH;
+        int height = getHeight() > 0 ? getHeight() : Game.BOARD_HEIGHT;
+        double left = centerX(0) - length;
+        double right = centerX(size - 1) + length;
+        double top = Math.min(centerY(0, 0), centerY(0, size - 1)) - length;
+        double bottom = Math.max(centerY(size - 1, 0), centerY(size - 1, size - 1)) + length;
+        if (left * scale + offsetX >= 0 && right * scale + offsetX <= width
+                && top * scale + offsetY >= 0 && bottom * scale + offsetY <= height) {
+            return;
         }
+        scale = Math.max(MIN_SCALE, Math.min(1, Math.min(width / (right - left), height / (bottom - top))));
+        offsetX = (width - (right - left) * scale) / 2 - left * scale;
+        offsetY = (height - (bottom - top) * scale) / 2 - top * scale;
+        viewChanged();
+    }
+
+    /**
+     * @return how many times bigger than its layout the board is drawn
+     */
+    public double getZoom() {
+        return scale;
+    }
+
+    /**
+     * Redraw the board for a new view
+     */
+    private void viewChanged() {
+        board = null;
+        repaint();
+    }
+
+    /**
+     * The board x of a screen x
+     */
+    private double boardX(int x) {
+        return (x - offsetX) / scale;
+    }
+
+    /**
+     * The board y of a screen y
+     */
+    private double boardY(int y) {
+        return (y - offsetY) / scale;
+    }
+
+    /**
+     * The x coordinate of the centers of a column, each column is one step right
+     */
+    private int centerX(int col) {
+        return topLeftX + col * (length - 1) * 2;
+    }
+
+    /**
+     * The y coordinate of a center, each column starts a little higher than the last
+     */
+    private int centerY(int row, int col) {
+        return topLeftY - col * (length - 2) + row * length * 2;
     }
 
     /**
@@ -54,38 +225,250 @@ public class HexGrid extends JComponent{
      * @param color the color to set
      */
     public void setColor(int row, int col, int color) {
-        if (color == GameController.WHITE) {
-            hexagons[row][col].setColor(Color.WHITE);
+        byte old = colors[row * size + col];
+        colors[row * size + col] = (byte) (color == GameController.WHITE ? GameController.WHITE : GameController.BLACK);
+        // only the changed hexagon or block needs drawing and copying to the screen
+        if (board != null && block > 0) {
+            int b = blockOf(row, col);
+            if (b >= 0) {
+                count(b, old, -1);
+                count(b, colors[row * size + col], 1);
+                fillBlock(b);
+                repaint((b % blocksAcross) * block, (b / blocksAcross) * block, block, block);
+            }
+            return;
         }
-        else
-            hexagons[row][col].setColor(Color.BLACK);
-        repaint();
+        if (board != null) {
+            Graphics g = boardGraphics();
+            drawHexagon(g, row, col);
+            g.dispose();
+        }
+        repaint(bounds(row, col));
+    }
+
+    /**
+     * The bounding box of a hexagon on the screen
+     * @param row the row position
+     * @param col the column position
+     * @return a new rectangle
+     */
+    Rectangle bounds(int row, int col) {
+        Rectangle r = hexagon.getBounds(centerX(col), centerY(row, col));
+        int x = (int) Math.floor(r.x * scale + offsetX);
+        int y = (int) Math.floor(r.y * scale + offsetY);
+        return new Rectangle(x, y, (int) Math.ceil((r.x + r.width) * scale + offsetX) - x,
+                (int) Math.ceil((r.y + r.height) * scale + offsetY) - y);
+    }
+
+    /**
+     * Is a screen point inside a hexagon
+     * @param row the row position
+     * @param col the column position
+     * @param x the point x
+     * @param y the point y
+     * @return true if the point is inside
+     */
+    boolean contains(int row, int col, int x, int y) {
+        return hexagon.contains(centerX(col), centerY(row, col), boardX(x), boardY(y));
     }
 
     /**
-     * Return the array position of the hex corresponding to the given mouse click locatoin
+     * Fill one hexagon in its color
+     */
+    private void drawHexagon(Graphics g, int row, int col) {
+        byte color = colors[row * size + col];
+        g.setColor(color == GameController.WHITE ? Color.WHITE : color == GameController.BLACK ? Color.BLACK : Color.LIGHT_GRAY);
+        hexagon.draw(g, centerX(col), centerY(row, col));
+    }
+
+    /**
+     * Return the array position of the hex corresponding to the given mouse click locatoin.
+     * The nearest column and row are worked out from the layout, so only the hexagons
+     * around them (at most nine) are tested whatever the size of the board.
      * @param y mouse y (row)
      * @param x mouse x coordinate (column)
      * @return the corresponding location of the hexagon in the board
      */
     public Optional<Point> getHexDim(int y, int x) {
-        for(int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                if(hexagons[row][col].getPolygon().contains(x, y) ){
-                    return Optional.of(new Point(col, row));
+        double bx = boardX(x);
+        double by = boardY(y);
+        // a hexagon reaches length to either side of its center, under one column step
+        // for any length above 2, and under half a row step up and down, so the one
+        // holding the point is at most one column and one row from the nearest center
+        int nearCol = (int) Math.round((bx - topLeftX) / (2.0 * (length - 1)));
+        Point found = null;
+        for (int col = Math.max(0, nearCol - 1); col <= Math.min(size - 1, nearCol + 1); col++) {
+            int nearRow = (int) Math.round((by - centerY(0, col)) / (2.0 * length));
+            for (int row = Math.max(0, nearRow - 1); row <= Math.min(size - 1, nearRow + 1); row++) {
+                // where hexagons overlap at their edges, take the first in row order
+                boolean first = found == null || row < found.y || (row == found.y && col < found.x);
+                if (first && hexagon.contains(centerX(col), centerY(row, col), bx, by)) {
+                    found = new Point(col, row);
                 }
             }
         }
-        return Optional.empty();
+        return Optional.ofNullable(found);
     }
 
     @Override
     public void paintComponent(Graphics g) {
-        for(Hexagon[] hs : hexagons) {
-            for(Hexagon h: hs) {
-                h.draw(g);
+        PaintEvent event = null;
+        if (FlightRecording.active()) {
+            event = new PaintEvent();
+            event.begin();
+        }
+        long startTime = System.nanoTime();
+        int drawn = 0;
+        int width = Math.max(getWidth(), Game.BOARD_WIDTH);
+        int height = Math.max(getHeight(), Game.BOARD_HEIGHT);
+        if (board == null || board.getWidth() < width || board.getHeight() < height) {
+            drawn = drawBoard(width, height);
+        }
+        // the clip set by repaint limits the copy to the dirty region
+        g.drawImage(board, 0, 0, null);
+        paintTime.recordSince(startTime);
+        if (event != null && event.shouldCommit()) {
+            event.boardSize = size;
+            event.hexagons = drawn;
+            event.commit();
+        }
+    }
+
+    /**
+     * Draw the hexagons in view into a new board image
+     * @return the number of hexagons drawn
+     */
+    private int drawBoard(int width, int height) {
+        // transparent around the hexagons so the game's background shows through
+        board = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        if (2 * length * scale < DETAIL_PIXELS) {
+            return drawBlocks(width, height);
+        }
+        block = 0;
+        cells = whites = blacks = null;
+        Graphics g = boardGraphics();
+        int drawn = 0;
+        int lastCol = lastCol(boardX(width));
+        for (int col = firstCol(boardX(0)); col <= lastCol; col++) {
+            int lastRow = lastRow(col, boardY(height));
+            for (int row = firstRow(col, boardY(0)); row <= lastRow; row++) {
+                drawHexagon(g, row, col);
+                drawn++;
             }
         }
+        g.dispose();
+        return drawn;
+    }
+
+    /**
+     * Draw the board image in blocks about the size of a hexagon, each in the
+     * average color of the hexagons centered in it
+     * @return the number of hexagons counted
+     */
+    private int drawBlocks(int width, int height) {
+        block = Math.max(1, (int) Math.ceil(2 * length * scale));
+        blocksAcross = (width + block - 1) / block;
+        int blocks = blocksAcross * ((height + block - 1) / block);
+        cells = new int[blocks];
+        whites = new int[blocks];
+        blacks = new int[blocks];
+        int drawn = 0;
+        int lastCol = lastCol(boardX(width));
+        for (int col = firstCol(boardX(0)); col <= lastCol; col++) {
+            int lastRow = lastRow(col, boardY(height));
+            for (int row = firstRow(col, boardY(0)); row <= lastRow; row++) {
+                int b = blockOf(row, col);
+                if (b >= 0) {
+                    count(b, colors[row * size + col], 1);
+                    drawn++;
+                }
+            }
+        }
+        for (int b = 0; b < blocks; b++) {
+            if (cells[b] > 0) {
+                fillBlock(b);
+            }
+        }
+        return drawn;
+    }
+
+    /**
+     * The block of the board image a hexagon's center is in
+     * @return the block, or -1 if the center is outside the image
+     */
+    private int blockOf(int row, int col) {
+        int x = (int) Math.floor(centerX(col) * scale + offsetX);
+        int y = (int) Math.floor(centerY(row, col) * scale + offsetY);
+        if (x < 0 || y < 0 || x >= board.getWidth() || y >= board.getHeight()) {
+            return -1;
+        }
+        return (y / block) * blocksAcross + x / block;
+    }
+
+    /**
+     * Add or take away a hexagon of a color from a block's counts
+     */
+    private void count(int b, byte color, int n) {
+        cells[b] += n;
+        if (color == GameController.WHITE) {
+            whites[b] += n;
+        } else if (color == GameController.BLACK) {
+            blacks[b] += n;
+        }
+    }
+
+    /**
+     * Fill a block in the average of its hexagons' colors, which are all greys
+     */
+    private void fillBlock(int b) {
+        int empty = cells[b] - whites[b] - blacks[b];
+        int grey = (Color.LIGHT_GRAY.getRed() * empty + Color.WHITE.getRed() * whites[b]) / cells[b];
+        int argb = 0xFF000000 | grey * 0x010101;
+        int x0 = (b % blocksAcross) * block;
+        int y0 = (b / blocksAcross) * block;
+        for (int y = y0; y < Math.min(y0 + block, board.getHeight()); y++) {
+            for (int x = x0; x < Math.min(x0 + block, board.getWidth()); x++) {
+                board.setRGB(x, y, argb);
+            }
+        }
+    }
+
+    /**
+     * Graphics for the board image that draw in board coordinates
+     */
+    private Graphics boardGraphics() {
+        Graphics2D g = board.createGraphics();
+        g.translate(offsetX, offsetY);
+        g.scale(scale, scale);
+        return g;
+    }
+
+    /**
+     * The first column with a hexagon right of a board x
+     */
+    private int firstCol(double x) {
+        return Math.max(0, (int) Math.floor((x - length - topLeftX) / (2.0 * (length - 1))));
+    }
+
+    /**
+     * The last column with a hexagon left of a board x
+     */
+    private int lastCol(double x) {
+        return Math.min(size - 1, (int) Math.ceil((x + length - topLeftX) / (2.0 * (length - 1))));
+    }
+
+    /**
+     * The first row of a column with a hexagon below a board y
+     */
+    private int firstRow(int col, double y) {
+        return Math.max(0, (int) Math.floor((y - length - centerY(0, col)) / (2.0 * length)));
+    }
+
+    /**
+     * The last row of a column with a hexagon above a board y
+     */
+    private int lastRow(int col, double y) {
+        return Math.min(size - 1, (int) Math.ceil((y + length - centerY(0, col)) / (2.0 * length)));
     }
 
 }
@@ -1,47 +1,90 @@
 package islands.frontend;
 
 import java.awt.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * A Single hexagon tile in the game board
+ * The shape of a hexagon tile of one size, centered on the origin. One shape
+ * is shared by every tile of that size and moved to a tile's center when it is
+ * drawn or tested, so a board keeps no per-tile shapes.
  */
 public class Hexagon {
 
-    private Polygon poly;
-    private Color color;
-
-    public static int hexagonLength = 25;
     public final static double THETA = (Math.PI*2) / 6.0;
     public final static int HEXAGON_SPACING = 5;
 
+    private static final ConcurrentMap<Integer, Hexagon> SHAPES = new ConcurrentHashMap<>();
+
+    private final int length;
+    private final Polygon poly;
+
     /**
-     * create a hexagon centered at x,y having color clr
-     * @param x the column
-     * @param y the row
-     * @param clr the color
+     * The shared shape for hexagons with the given side length
+     * @param length the distance from the center to each corner
+     * @return the shape
      */
-    public Hexagon(int x, int y, Color clr) {
-        color = clr;
+    public static Hexagon ofLength(int length) {
+        return SHAPES.computeIfAbsent(length, Hexagon::new);
+    }
+
+    /**
+     * create a hexagon centered at 0,0
+     * @param length the distance from the center to each corner
+     */
+    private Hexagon(int length) {
+        this.length = length;
         poly = new Polygon();
         for(int i = 0; i < 6; i++ ) {
-            int x1 = (int) (x + hexagonLength * Math.cos(THETA*i));
-            int y1 = (int) (y + hexagonLength * Math.sin(THETA*i));
+            // the true corner rounded down; the small error in cos and sin would
+            // otherwise put some corners a pixel short
+            int x1 = (int) Math.floor(length * Math.cos(THETA*i) + 1e-9);
+            int y1 = (int) Math.floor(length * Math.sin(THETA*i) + 1e-9);
             poly.addPoint(x1, y1);
         }
     }
 
-    public void setColor(Color clr) {
-        color = clr;
+    /**
+     * @return the distance from the center to each corner
+     */
+    public int getLength() {
+        return length;
     }
 
-    public Polygon getPolygon() {
-        return poly;
+    /**
+     * Fill the hexagon centered at x,y in the current color of g
+     * @param g graphics
+     * @param x the center x
+     * @param y the center y
+     */
+    public void draw(Graphics g, int x, int y) {
+        g.translate(x, y);
+        g.fillPolygon(poly);
+        g.translate(-x, -y);
     }
 
-    public void draw(Graphics g) {
-        g.setColor(color);
-        g.fillPolygon(poly);
+    /**
+     * Is a point inside the hexagon centered at x,y
+     * @param x the center x
+     * @param y the center y
+     * @param px the point x
+     * @param py the point y
+     * @return true if the point is inside
+     */
+    public boolean contains(int x, int y, double px, double py) {
+        return poly.contains(px - x, py - y);
     }
 
+    /**
+     * The bounding box of the hexagon centered at x,y
+     * @param x the center x
+     * @param y the center y
+     * @return a new rectangle
+     */
+    public Rectangle getBounds(int x, int y) {
+        Rectangle bounds = poly.getBounds();
+        bounds.translate(x, y);
+        return bounds;
+    }
 
 }
@@ -0,0 +1,60 @@
+package islands.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count of events that any number of threads can add to without contending
+ */
+public class Counter {
+
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * @param name what is being counted
+     */
+    public Counter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Count one event
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Count several events
+     * @param n the number of events
+     */
+    public void add(long n) {
+        value.add(n);
+    }
+
+    /**
+     * @return the number of events counted
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    /**
+     * Start counting from 0 again
+     */
+    public void reset() {
+        value.reset();
+    }
+
+    /**
+     * @return what is being counted
+     */
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + get();
+    }
+}
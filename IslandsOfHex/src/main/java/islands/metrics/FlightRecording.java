@@ -0,0 +1,49 @@
+package islands.metrics;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Tracks whether any Flight Recorder recording is running, so the hottest
+ * paths (makePlay runs millions of times a second in simulations) can skip
+ * creating their events altogether with one field read. Elsewhere the usual
+ * begin and shouldCommit are cheap enough.
+ */
+public final class FlightRecording {
+
+    private static volatile boolean active;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                update(recorder);
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                update(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    private FlightRecording() {
+    }
+
+    /**
+     * @return true while at least one recording is running
+     */
+    public static boolean active() {
+        return active;
+    }
+
+    private static void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording recording : recorder.getRecordings()) {
+            running |= recording.getState() == RecordingState.RUNNING;
+        }
+        active = running;
+    }
+}
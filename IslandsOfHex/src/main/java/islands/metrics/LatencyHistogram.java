@@ -0,0 +1,153 @@
+package islands.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds, in the style of HdrHistogram:
+ * buckets are linear within each power of two, so every recorded value is
+ * kept to within 1/64 (1.6%) from one nanosecond up to about 18 minutes.
+ *
+ * Recording is one array increment plus a few atomic updates, with no
+ * allocation and no locks, so it can be left on in the game and called from
+ * any thread.
+ */
+public class LatencyHistogram {
+
+    // values below SUB_BUCKETS get a bucket each, every power of two above
+    // that is split into HALF linear buckets
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    /** the largest value kept exactly enough, anything above is recorded as this */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private final String name;
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param name what is being timed
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+        counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+    }
+
+    /**
+     * Record one duration
+     * @param nanos the duration in nanoseconds, negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value)) {
+            seen = max.get();
+        }
+    }
+
+    /**
+     * Record the time since a start taken from System.nanoTime()
+     * @param startNanos the start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return what is being timed
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the number of durations recorded
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @return the mean duration in nanoseconds, 0 if nothing was recorded
+     */
+    public double mean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @return the longest duration in nanoseconds
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * The duration the given fraction of recordings took at most
+     * @param fraction from 0 to 1, e.g. 0.99 for the 99th percentile
+     * @return the highest value in the bucket holding that rank, at most max(), 0 if nothing was recorded
+     */
+    public long percentile(double fraction) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forget everything recorded. Recordings made at the same time may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: count %d, mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, p999 %.1f us, max %.1f us",
+                name, count(), mean() / 1e3, percentile(0.5) / 1e3, percentile(0.9) / 1e3,
+                percentile(0.99) / 1e3, percentile(0.999) / 1e3, max() / 1e3);
+    }
+
+    /**
+     * The bucket of a value from 0 to MAX_VALUE
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * The highest value that lands in a bucket
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long lowest = (long) (index % HALF + HALF) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,41 @@
+package islands.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one GameModel.makePlay. Simulations and searches
+ * play millions of moves, so by default only plays slower than the threshold
+ * are recorded; set it to 0 ms in a recording's settings to see every play.
+ */
+@Name("islands.MakePlay")
+@Label("Make Play")
+@Description("A piece played into the game model")
+@Category({"Islands of Hex", "Engine"})
+@StackTrace(false)
+@Threshold("20 us")
+public class MakePlayEvent extends jdk.jfr.Event {
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Move")
+    @Description("Number of pieces on the board after the play")
+    public int move;
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int col;
+
+    @Label("White")
+    public boolean white;
+
+    @Label("Game Over")
+    public boolean gameOver;
+}
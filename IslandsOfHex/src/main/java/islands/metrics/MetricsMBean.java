@@ -0,0 +1,119 @@
+package islands.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exposes a registry over JMX. Every counter is an attribute of its own name
+ * and every histogram gives count, mean, p50, p90, p99, p999 and max attributes
+ * (e.g. "makePlay.p99"), in nanoseconds. Metrics made after registration show
+ * up the next time the client reads the MBean info.
+ */
+class MetricsMBean implements DynamicMBean {
+
+    private static final String[] STATS = {"count", "mean", "p50", "p90", "p99", "p999", "max"};
+
+    private final MetricsRegistry registry;
+
+    MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        for (Counter counter : registry.counters()) {
+            if (counter.name().equals(attribute)) {
+                return counter.get();
+            }
+        }
+        int dot = attribute.lastIndexOf('.');
+        if (dot > 0) {
+            String name = attribute.substring(0, dot);
+            for (LatencyHistogram histogram : registry.histograms()) {
+                if (histogram.name().equals(name)) {
+                    return stat(histogram, attribute.substring(dot + 1), attribute);
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    private static Object stat(LatencyHistogram histogram, String stat, String attribute) throws AttributeNotFoundException {
+        switch (stat) {
+            case "count": return histogram.count();
+            case "mean": return histogram.mean();
+            case "p50": return histogram.percentile(0.5);
+            case "p90": return histogram.percentile(0.9);
+            case "p99": return histogram.percentile(0.99);
+            case "p999": return histogram.percentile(0.999);
+            case "max": return histogram.max();
+            default: throw new AttributeNotFoundException(attribute);
+        }
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // left out, as the interface asks
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("metrics are read only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        switch (actionName) {
+            case "reset":
+                registry.reset();
+                return null;
+            case "dump":
+                return registry.dump();
+            default:
+                throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Counter counter : registry.counters()) {
+            attributes.add(new MBeanAttributeInfo(counter.name(), "long", "count of " + counter.name(), true, false, false));
+        }
+        for (LatencyHistogram histogram : registry.histograms()) {
+            for (String stat : STATS) {
+                String type = stat.equals("mean") ? "double" : "long";
+                attributes.add(new MBeanAttributeInfo(histogram.name() + "." + stat, type,
+                        stat + " of " + histogram.name() + " in nanoseconds", true, false, false));
+            }
+        }
+        MBeanOperationInfo[] operations = {
+                new MBeanOperationInfo("reset", "reset every metric", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+                new MBeanOperationInfo("dump", "every metric as text", new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO)
+        };
+        return new MBeanInfo(MetricsRegistry.class.getName(), "Islands of Hex metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+}
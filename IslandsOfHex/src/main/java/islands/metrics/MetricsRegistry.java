@@ -0,0 +1,103 @@
+package islands.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Named latency histograms and counters, created on first use and kept for
+ * the life of the registry. Look a metric up once and keep it, recording
+ * into it is then allocation free.
+ *
+ * The metrics can be read as a plain text dump or watched over JMX once the
+ * registry is registered as an MBean.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    // sorted so dumps and JMX list the metrics in a stable order
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+
+    /**
+     * @return the registry the game records into
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * The histogram with the given name, made if it doesn't exist yet
+     * @param name what is being timed
+     * @return the histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * The counter with the given name, made if it doesn't exist yet
+     * @param name what is being counted
+     * @return the counter
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * @return every histogram, by name
+     */
+    public Collection<LatencyHistogram> histograms() {
+        return histograms.values();
+    }
+
+    /**
+     * @return every counter, by name
+     */
+    public Collection<Counter> counters() {
+        return counters.values();
+    }
+
+    /**
+     * Reset every metric
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(Counter::reset);
+    }
+
+    /**
+     * @return one line per counter and then per histogram
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (Counter counter : counters.values()) {
+            sb.append(counter).append(System.lineSeparator());
+        }
+        for (LatencyHistogram histogram : histograms.values()) {
+            sb.append(histogram).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Make the metrics visible to JMX clients such as jconsole, doing nothing if
+     * the name is already registered
+     * @param objectName the MBean name, e.g. "islands:type=Metrics"
+     * @throws IllegalArgumentException if the name isn't a valid MBean name
+     */
+    public void registerMBean(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(this), new ObjectName(objectName));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered already
+        } catch (JMException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
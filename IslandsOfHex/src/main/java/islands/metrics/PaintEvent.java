@@ -0,0 +1,25 @@
+package islands.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one paint of the hex grid on the event dispatch thread
+ */
+@Name("islands.Paint")
+@Label("Paint Hex Grid")
+@Description("The hex grid painted by HexGrid.paintComponent")
+@Category({"Islands of Hex", "UI"})
+@StackTrace(false)
+public class PaintEvent extends jdk.jfr.Event {
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Hexagons Drawn")
+    @Description("Hexagons drawn into the cached board image, 0 when it was only copied")
+    public int hexagons;
+}
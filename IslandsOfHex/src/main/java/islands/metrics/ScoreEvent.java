@@ -0,0 +1,30 @@
+package islands.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for reading the score after a move in the controller
+ */
+@Name("islands.Score")
+@Label("Score")
+@Description("Both scores read after a move")
+@Category({"Islands of Hex", "Engine"})
+@StackTrace(false)
+public class ScoreEvent extends jdk.jfr.Event {
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Move")
+    public int move;
+
+    @Label("White Score")
+    public int whiteScore;
+
+    @Label("Black Score")
+    public int blackScore;
+}
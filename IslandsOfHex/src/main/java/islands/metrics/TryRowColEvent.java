@@ -0,0 +1,34 @@
+package islands.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one GameController.tryRowCol, from the check that
+ * the hex is free to the view being told the new score
+ */
+@Name("islands.TryRowCol")
+@Label("Try Row Col")
+@Description("A move attempted through the controller, including the view updates")
+@Category({"Islands of Hex", "Controller"})
+public class TryRowColEvent extends jdk.jfr.Event {
+
+    @Label("Board Size")
+    public int boardSize;
+
+    @Label("Move")
+    @Description("Number of pieces on the board afterwards")
+    public int move;
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int col;
+
+    @Label("Played")
+    @Description("False if the hex was already taken")
+    public boolean played;
+}
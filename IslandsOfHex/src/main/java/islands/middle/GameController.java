@@ -8,26 +8,83 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import islands.backend.GameModel;
+import islands.backend.Player;
+import islands.metrics.Counter;
+import islands.metrics.FlightRecording;
+import islands.metrics.LatencyHistogram;
+import islands.metrics.MetricsRegistry;
+import islands.metrics.ScoreEvent;
+import islands.metrics.TryRowColEvent;
 
 /**
  * Control the game flow
+ *
+ * The game is played on its own thread, which alone touches the model. Clicks
+ * and simulation turns are sent to it as commands. What they change is handed
+ * back in batches, and the event dispatch thread shows the batches at most once
+ * a frame, however fast the game runs. Slow scoring or a slow computer player
+ * never holds up input or painting.
  */
 public class GameController implements MouseListener {
 
-    private ViewDelegate viewDelegate;
+    /** the time between simulated turns, unless set otherwise */
+    public final static int SIMULATION_DELAY = 250;
+    // the time between updates of the view, about 60 a second
+    private final static int FRAME_MILLIS = 16;
+    // how long one command of a full speed simulation plays for
+    private final static long SIMULATION_SLICE_NANOS = 1_000_000L;
+
+    private volatile ViewDelegate viewDelegate;
+    private final GameEngine engine;
+    // changes for the view made by the current command, only touched on the game thread
+    private ViewBatch batch = new ViewBatch();
+    // the changes handed over for the next frame
+    private final ConcurrentLinkedQueue<ViewBatch> ready = new ConcurrentLinkedQueue<>();
+    // shows the next frame once changes are waiting, idle otherwise
+    private final Timer frames;
+    private final AtomicBoolean framePending = new AtomicBoolean();
+    // set once the game is stopped, so nothing more reaches the view
+    private volatile boolean stopped;
+
+    // the game, only touched on the game thread
     private GameModel model;
     private int turn;
     private boolean gameOver;
     private int size;
 
     private Timer timer;
+    private final Random rand = new Random();
 
-    private boolean simulationGame;
+    private final boolean simulationGame;
+    private final int simulationDelay;
+    // a full speed simulation asked to start before the board was made
+    private boolean simulationWaiting;
+
+    // computer players for each color, null where moves are random (simulation) or clicked
+    private Player whitePlayer;
+    private Player blackPlayer;
 
     public final static int WHITE = -1;
     public final static int BLACK = 1;
 
+    // names of the metrics recorded into MetricsRegistry.global(); makePlay keeps
+    // the scores and spans up to date as it joins islands, so its time covers them
+    public final static String CAN_PLAY = "canPlay";
+    public final static String MAKE_PLAY = "makePlay";
+    public final static String MOVES = "moves";
+    public final static String GAMES = "games";
+    public final static String SPAN_ENDINGS = "spanEndings";
+
+    // looked up once so recording into them doesn't allocate
+    private final LatencyHistogram canPlayTime = MetricsRegistry.global().histogram(CAN_PLAY);
+    private final LatencyHistogram makePlayTime = MetricsRegistry.global().histogram(MAKE_PLAY);
+    private final Counter moves = MetricsRegistry.global().counter(MOVES);
+    private final Counter games = MetricsRegistry.global().counter(GAMES);
+    private final Counter spanEndings = MetricsRegistry.global().counter(SPAN_ENDINGS);
+
     /**
      * The required interface to display the game
      */
@@ -85,9 +142,22 @@ public class GameController implements MouseListener {
      * @param simulationGame true for a simulated game and false for 2 player game
      */
     public GameController(boolean simulationGame) {
+        this(simulationGame, SIMULATION_DELAY);
+    }
+
+    /**
+     * Create a controller with a given pace for simulated games
+     * @param simulationGame true for a simulated game and false for 2 player game
+     * @param simulationDelay milliseconds between simulated turns, 0 to play them as fast as possible
+     */
+    public GameController(boolean simulationGame, int simulationDelay) {
         turn = WHITE;
         gameOver = false;
         this.simulationGame = simulationGame;
+        this.simulationDelay = simulationDelay;
+        engine = new GameEngine("game", this::handOver);
+        frames = new Timer(FRAME_MILLIS, e -> showFrame());
+        frames.setRepeats(false);
 
         if (simulationGame) {
             simulate();
@@ -95,11 +165,40 @@ public class GameController implements MouseListener {
     }
 
     /**
-     * Change the turn from white to black or vice versa
+     * Change the turn from white to black or vice versa, on the game thread
      */
-    public void toggleTurn() {
+    private void toggleTurn() {
         turn = turn * -1;
-        viewDelegate.displayTurn(turn == BLACK ? "Black": "White");
+        batch.displayTurn(turn == BLACK ? "Black": "White");
+    }
+
+    /**
+     * Hand the changes a command made to the view, on the game thread after each command
+     */
+    private void handOver() {
+        if (!batch.isEmpty()) {
+            ready.offer(batch);
+            batch = new ViewBatch();
+            if (framePending.compareAndSet(false, true)) {
+                frames.start();
+            }
+        }
+    }
+
+    /**
+     * Show every change handed over since the last frame, on the event dispatch thread
+     */
+    private void showFrame() {
+        // cleared first, so changes handed over from here on start another frame
+        framePending.set(false);
+        // a command still running when the game was stopped may hand over one last batch
+        if (stopped || viewDelegate == null) {
+            return;
+        }
+        ViewBatch changes;
+        while ((changes = ready.poll()) != null) {
+            changes.applyTo(viewDelegate);
+        }
     }
 
     /**
@@ -107,8 +206,30 @@ public class GameController implements MouseListener {
      * @param size the size of one side of the sq. game board
      */
     public void setSize(int size) {
-        this.size = size;
-        model = new GameModel(size);
+        engine.submit(() -> {
+            this.size = size;
+            model = new GameModel(size);
+            if (simulationWaiting) {
+                simulationWaiting = false;
+                simulateTurn();
+            }
+        });
+    }
+
+    /**
+     * Let a computer player choose the moves for one color
+     * @param clr WHITE or BLACK
+     * @param player the player, or null to go back to random or clicked moves
+     */
+    public void setPlayer(int clr, Player player) {
+        engine.submit(() -> {
+            if (clr == WHITE) {
+                whitePlayer = player;
+            }
+            else {
+                blackPlayer = player;
+            }
+        });
     }
 
     /**
@@ -117,19 +238,55 @@ public class GameController implements MouseListener {
      */
     public void setDelegate(ViewDelegate vd) {
         viewDelegate = vd;
-        vd.displayTurn("White");
+        engine.submit(() -> batch.displayTurn("White"));
         vd.listen(this);
     }
 
     /**
-     * Play a game piece at a point on the screen
+     * Play a game piece at a point on the screen, then let any computer player answer
      * @param p the row and col position to play into
      */
     public void tryRowColFromPoint(Point p) {
-        int col = p.x;
-        int row = p.y;
-        System.out.println("click row:" + row + " col:" + col);
-        tryRowCol(row, col);
+        engine.submit(() -> {
+            // a click made while the computer is still to answer an earlier one is ignored
+            if (gameOver || currentPlayer() != null) {
+                return;
+            }
+            int col = p.x;
+            int row = p.y;
+            play(row, col);
+            // separately, so the move is shown while the computer thinks
+            engine.submit(this::playComputerTurns);
+        });
+    }
+
+    /**
+     * Let the computer players move until it is a person's turn or the game ends,
+     * one move per command
+     */
+    private void playComputerTurns() {
+        Player player = currentPlayer();
+        if (!gameOver && player != null) {
+            playComputerTurn(player);
+            engine.submit(this::playComputerTurns);
+        }
+    }
+
+    /**
+     * Ask a computer player for a move and play it
+     * @param player the player whose turn it is
+     */
+    private void playComputerTurn(Player player) {
+        int hex = player.chooseMove(model, turn == WHITE ? GameModel.WHITE : GameModel.BLACK);
+        play(hex / size, hex % size);
+    }
+
+    /**
+     * The computer player for the color whose turn it is
+     * @return the player, or null if this color isn't played by the computer
+     */
+    private Player currentPlayer() {
+        return turn == WHITE ? whitePlayer : blackPlayer;
     }
 
     /**
@@ -138,30 +295,77 @@ public class GameController implements MouseListener {
      * @param col the col to play into
      */
     public void tryRowCol(int row, int col) {
-        if(model.canPlay(row, col)) {
-            viewDelegate.setColor(row, col, turn);
+        engine.submit(() -> play(row, col));
+    }
+
+    /**
+     * Play a game piece in row, col if it is empty, on the game thread
+     * @param row the row to play into
+     * @param col the col to play into
+     */
+    private void play(int row, int col) {
+        TryRowColEvent event = null;
+        if (FlightRecording.active()) {
+            event = new TryRowColEvent();
+            event.begin();
+        }
+        long checkTime = System.nanoTime();
+        boolean open = model.canPlay(row, col);
+        canPlayTime.recordSince(checkTime);
+        if(open) {
+            batch.setColor(row, col, turn);
             long startTime = System.nanoTime();
             boolean color = GameModel.BLACK; //black
             if (turn == -1) {
                 color = GameModel.WHITE;
             }
-            if(model.makePlay(row, col, color)) {
-                System.out.println("winner");
+            boolean over = model.makePlay(row, col, color);
+            makePlayTime.recordSince(startTime);
+            moves.increment();
+
+            ScoreEvent scoreEvent = null;
+            if (FlightRecording.active()) {
+                scoreEvent = new ScoreEvent();
+                scoreEvent.begin();
+            }
+            int whiteScore = model.whiteScore();
+            int blackScore = model.blackScore();
+            if (scoreEvent != null && scoreEvent.shouldCommit()) {
+                scoreEvent.boardSize = size;
+                scoreEvent.move = model.move;
+                scoreEvent.whiteScore = whiteScore;
+                scoreEvent.blackScore = blackScore;
+                scoreEvent.commit();
+            }
+
+            if(over) {
                 gameOver = true;
-                if(model.whiteScore() > model.blackScore())
-                    viewDelegate.setWinner("WHITE");
-                else if (model.blackScore() > model.whiteScore())
-                    viewDelegate.setWinner("BLACK");
+                games.increment();
+                if (model.whiteSpan() || model.blackSpan()) {
+                    spanEndings.increment();
+                }
+                if(whiteScore > blackScore)
+                    batch.setWinner("WHITE");
+                else if (blackScore > whiteScore)
+                    batch.setWinner("BLACK");
                 else
-                    viewDelegate.setWinner("TIE");
+                    batch.setWinner("TIE");
             }
             else {
                 toggleTurn();
             }
             long endTime = System.nanoTime();
             long timeElapsed = endTime - startTime;
-            viewDelegate.setTime(timeElapsed / 1000000.0);
-            viewDelegate.setScore(model.whiteScore(), model.blackScore());
+            batch.setTime(timeElapsed / 1000000.0);
+            batch.setScore(whiteScore, blackScore);
+        }
+        if (event != null && event.shouldCommit()) {
+            event.boardSize = size;
+            event.move = model.move;
+            event.row = row;
+            event.col = col;
+            event.played = open;
+            event.commit();
         }
 
     }
@@ -170,42 +374,56 @@ public class GameController implements MouseListener {
      * Simulate a game
      */
     public void simulate() {
+        if (simulationDelay == 0) {
+            engine.submit(this::simulateTurn);
+            return;
+        }
         ActionListener simulateTurn = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                Random rand = new Random();
-                int row = rand.nextInt(size);
-                int col = rand.nextInt(size);
-
-                int tries = 0;
-                while(!model.canPlay(row, col) && tries < 50) {
-                    row = rand.nextInt(size);
-                    col = rand.nextInt(size);
-                    tries++;
-                }
-                //having trouble with randoms, just find the first match
-                if (tries == 50) {
-                    for(int i = 0; i < size; i++) {
-                        for(int j = 0; j < size; j++) {
-                            if (model.canPlay(i,j)) {
-                                row = i;
-                                col = j;
-                                break;
-                            }
-                        }
-                    }
-                }
-                //guaranteed we can play since game is over otherwise
-                tryRowCol(row, col);
-                if (gameOver) {
-                    timer.stop();
-                }
+                engine.submit(GameController.this::simulateTurn);
             }
         };
-        timer = new Timer(250, simulateTurn);
+        timer = new Timer(simulationDelay, simulateTurn);
         timer.start();
     }
 
+    /**
+     * Play one simulated turn on the game thread, or at full speed as many as
+     * fit in a slice, so each command hands the view a batch of turns
+     */
+    private void simulateTurn() {
+        if (gameOver) {
+            return;
+        }
+        if (model == null) {
+            // setSize starts it
+            simulationWaiting = simulationDelay == 0;
+            return;
+        }
+        long sliceEnd = System.nanoTime() + SIMULATION_SLICE_NANOS;
+        do {
+            Player player = currentPlayer();
+            if (player != null) {
+                playComputerTurn(player);
+            }
+            else {
+                //guaranteed we can play since game is over otherwise
+                int hex = model.randomEmptyHex(rand);
+                play(hex / size, hex % size);
+            }
+        } while (simulationDelay == 0 && !gameOver && System.nanoTime() < sliceEnd);
+        if (gameOver) {
+            if (timer != null) {
+                timer.stop();
+            }
+        }
+        else if (simulationDelay == 0) {
+            // queued behind anything else sent meanwhile
+            engine.submit(this::simulateTurn);
+        }
+    }
+
     /**
      * Is this a simulated game?
      * @return true if simulation is on and false o.w.
@@ -215,12 +433,27 @@ public class GameController implements MouseListener {
     }
 
     /**
-     * stop the timer (not currently used)
+     * Wait until everything sent to the game thread so far has been played
+     */
+    public void awaitIdle() {
+        try {
+            engine.awaitIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop the simulation timer, the view updates and the game thread
      */
     public void stopAll() {
+        stopped = true;
         if(timer != null) {
             timer.stop();
         }
+        frames.stop();
+        engine.stop();
+        ready.clear();
     }
 
 
@@ -234,7 +467,8 @@ public class GameController implements MouseListener {
         if(simulationGame) {
             return;
         }
-        if(!gameOver) {
+        // the other buttons move the board around
+        if(SwingUtilities.isLeftMouseButton(e)) {
             Optional<Point> point = viewDelegate.getHexDim(e.getY(), e.getX());
             point.ifPresent(this::tryRowColFromPoint);
         }
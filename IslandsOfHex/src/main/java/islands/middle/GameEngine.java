@@ -0,0 +1,83 @@
+package islands.middle;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread that owns a game and runs the commands sent to it one at a time, in
+ * the order they were sent.
+ *
+ * Commands come in through a lock-free queue, so sending one never blocks the
+ * event dispatch thread, and the thread parks while the queue is empty.
+ */
+class GameEngine {
+
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final Runnable afterEach;
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    /**
+     * Start an engine thread
+     * @param name the thread's name
+     * @param afterEach run on the engine thread after every command, e.g. to hand changes to the view
+     */
+    GameEngine(String name, Runnable afterEach) {
+        this.afterEach = afterEach;
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a command to run on the engine thread, from any thread
+     * @param command the command
+     */
+    void submit(Runnable command) {
+        commands.offer(command);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Wait until every command submitted so far has run
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if called on the engine thread, which would wait forever
+     */
+    void awaitIdle() throws InterruptedException {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException();
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        submit(done::countDown);
+        done.await();
+    }
+
+    /**
+     * Stop the engine thread after the command it is running, dropping the rest.
+     * The running command still finishes, but afterEach no longer runs for it.
+     */
+    void stop() {
+        stopped = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (!stopped) {
+            Runnable command = commands.poll();
+            if (command == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                // one bad command shouldn't end the game
+                e.printStackTrace();
+            }
+            if (!stopped) {
+                afterEach.run();
+            }
+        }
+    }
+}
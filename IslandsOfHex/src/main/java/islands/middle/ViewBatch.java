@@ -0,0 +1,78 @@
+package islands.middle;
+
+import java.util.Arrays;
+
+/**
+ * The changes to the view made by one command on the game thread, applied
+ * on the event dispatch thread in one go. Every colored hex is kept,
+ * in order, but only the latest turn, time, score and winner.
+ */
+class ViewBatch {
+
+    // row, col and color of each hex colored
+    private int[] colors = new int[3 * 4];
+    private int count;
+    private String turn;
+    private double ms = -1;
+    private boolean scored;
+    private int whiteScore;
+    private int blackScore;
+    private String winner;
+
+    void setColor(int row, int col, int clr) {
+        if (count == colors.length) {
+            colors = Arrays.copyOf(colors, count * 2);
+        }
+        colors[count++] = row;
+        colors[count++] = col;
+        colors[count++] = clr;
+    }
+
+    void displayTurn(String clr) {
+        turn = clr;
+    }
+
+    void setTime(double ms) {
+        this.ms = ms;
+    }
+
+    void setScore(int whiteScore, int blackScore) {
+        scored = true;
+        this.whiteScore = whiteScore;
+        this.blackScore = blackScore;
+    }
+
+    void setWinner(String winner) {
+        this.winner = winner;
+    }
+
+    /**
+     * @return true if there is nothing to change
+     */
+    boolean isEmpty() {
+        return count == 0 && turn == null && ms < 0 && !scored && winner == null;
+    }
+
+    /**
+     * Make the changes on a view, on the event dispatch thread
+     * @param view the view
+     */
+    void applyTo(GameController.ViewDelegate view) {
+        for (int i = 0; i < count; i += 3) {
+            view.setColor(colors[i], colors[i + 1], colors[i + 2]);
+        }
+        if (turn != null) {
+            view.displayTurn(turn);
+        }
+        // after the turn, which the end of the game replaces
+        if (winner != null) {
+            view.setWinner(winner);
+        }
+        if (ms >= 0) {
+            view.setTime(ms);
+        }
+        if (scored) {
+            view.setScore(whiteScore, blackScore);
+        }
+    }
+}
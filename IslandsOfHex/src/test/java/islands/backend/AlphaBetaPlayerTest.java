@@ -0,0 +1,125 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlphaBetaPlayerTest {
+
+    /**
+     * Play size * size - empty random pieces, alternating colors, without ending the game
+     */
+    static GameModel randomPosition(int size, int empty, long seed) {
+        Random rand = new Random(seed);
+        GameModel model = new GameModel(size);
+        while (model.emptyCount() > empty) {
+            int hex = model.randomEmptyHex(rand);
+            if (model.makePlay(hex / size, hex % size, model.move % 2 == 0)) {
+                model.unmakePlay();
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Plain minimax to the end of the game
+     * @return 1 if clr wins with best play, -1 if it loses, 0 for a tie
+     */
+    static int solve(GameModel model, boolean clr) {
+        if (model.isGameOver()) {
+            int diff = model.whiteScore() - model.blackScore();
+            return Integer.signum(clr == GameModel.WHITE ? diff : -diff);
+        }
+        int best = -1;
+        for (int hex = 0; hex < model.board.length && best < 1; hex++) {
+            if (model.board[hex] == GameModel.EMPTY) {
+                model.makePlay(hex / model.gameEdge, hex % model.gameEdge, clr);
+                best = Math.max(best, -solve(model, !clr));
+                model.unmakePlay();
+            }
+        }
+        return best;
+    }
+
+    static int outcome(int score) {
+        return score > AlphaBetaPlayer.WIN / 2 ? 1 : score < -AlphaBetaPlayer.WIN / 2 ? -1 : 0;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8})
+    @DisplayName("Searching to the end agrees with plain minimax")
+    void matchesMinimax(int seed) {
+        GameModel model = randomPosition(seed % 2 == 0 ? 3 : 4, 7, seed);
+        boolean clr = model.move % 2 == 0;
+        AlphaBetaPlayer player = new AlphaBetaPlayer(0, AlphaBetaPlayer.MAX_DEPTH, 1 << 12);
+        int hex = player.chooseMove(model, clr);
+        int expected = solve(model, clr);
+        assertEquals(expected, outcome(player.lastScore()), "search should find the minimax outcome");
+        model.makePlay(hex / model.gameEdge, hex % model.gameEdge, clr);
+        assertEquals(expected, -solve(model, !clr), "chosen move should keep the minimax outcome");
+    }
+
+    @Test
+    @DisplayName("Chooses an empty hex, reports its search and leaves the game unchanged")
+    void choosesLegalMove() {
+        GameModel model = randomPosition(5, 15, 42);
+        long hash = model.hash();
+        AlphaBetaPlayer player = new AlphaBetaPlayer(0, 3, 1 << 12);
+        int hex = player.chooseMove(model, GameModel.WHITE);
+        assertTrue(model.canPlay(hex / 5, hex % 5), "chosen hex should be empty");
+        assertEquals(10, model.move, "model should be left as it was");
+        assertEquals(hash, model.hash(), "model should be left as it was");
+        assertEquals(3, player.lastDepth(), "expecting the depth limit to be reached");
+        assertEquals(hex, player.principalVariation()[0], "principal variation should start with the chosen move");
+        assertTrue(player.lastNodes() > 0 && player.lastNodesPerSecond() > 0, "expecting a node count and rate");
+        assertTrue(player.table().probes() > 0, "expecting the table to be used");
+    }
+
+    @Test
+    @DisplayName("Same position and depth give the same move")
+    void deterministic() {
+        GameModel model = randomPosition(11, 100, 7);
+        int first = new AlphaBetaPlayer(0, 3, 1 << 16).chooseMove(model, GameModel.BLACK);
+        int second = new AlphaBetaPlayer(0, 3, 1 << 16).chooseMove(model, GameModel.BLACK);
+        assertEquals(first, second, "expecting the same move twice");
+    }
+
+    @Test
+    @DisplayName("A player moved to another board size searches as if new")
+    void changesBoardSize() {
+        AlphaBetaPlayer player = new AlphaBetaPlayer(0, 3, 1 << 12);
+        // the empty boards of every size hash the same
+        player.chooseMove(new GameModel(3), GameModel.WHITE);
+        for (int size : new int[] {2, 3}) {
+            AlphaBetaPlayer fresh = new AlphaBetaPlayer(0, 3, 1 << 12);
+            int expected = fresh.chooseMove(new GameModel(size), GameModel.WHITE);
+            int hex = player.chooseMove(new GameModel(size), GameModel.WHITE);
+            assertEquals(expected, hex, "expecting the move of a new player on a " + size + "x" + size + " board");
+            assertEquals(fresh.lastScore(), player.lastScore(), "expecting the score of a new player on a " + size + "x" + size + " board");
+        }
+    }
+
+    @Timeout(value = 2000, unit = TimeUnit.MILLISECONDS)
+    @Test
+    @DisplayName("Stops on time with a legal move")
+    void honorsTimeBudget() {
+        GameModel model = new GameModel(11);
+        AlphaBetaPlayer player = new AlphaBetaPlayer(100);
+        int hex = player.chooseMove(model, GameModel.WHITE);
+        assertTrue(model.canPlay(hex / 11, hex % 11), "chosen hex should be empty");
+        assertTrue(player.lastDepth() < AlphaBetaPlayer.MAX_DEPTH, "search should be cut short");
+    }
+
+    @Test
+    @DisplayName("Needs a depth and a non-negative time")
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, ()->new AlphaBetaPlayer(0, 0, 16), "expecting illegal argument exception without depth");
+        assertThrows(IllegalArgumentException.class, ()->new AlphaBetaPlayer(0, AlphaBetaPlayer.MAX_DEPTH + 1, 16), "expecting illegal argument exception above the maximum depth");
+        assertThrows(IllegalArgumentException.class, ()->new AlphaBetaPlayer(-1, 4, 16), "expecting illegal argument exception for negative time");
+    }
+}
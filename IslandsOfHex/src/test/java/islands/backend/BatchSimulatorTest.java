@@ -0,0 +1,33 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSimulatorTest {
+
+    @Test
+    @DisplayName("Plays every game and every game has an outcome")
+    void playsAllGames() {
+        BatchSimulator.Results results = new BatchSimulator(5, 3, 7).run(100);
+        assertEquals(100, results.games(), "expecting every game to be played");
+        assertEquals(1.0, results.whiteWinRate() + results.blackWinRate() + results.tieRate(), 1e-9, "outcomes should add up to every game");
+        assertTrue(results.meanLength() > 0 && results.meanLength() <= 25, "game length should fit on the board");
+    }
+
+    @Test
+    @DisplayName("Same seed and threads give the same results")
+    void reproducible() {
+        String first = new BatchSimulator(11, 2, 42).run(200).toString();
+        String second = new BatchSimulator(11, 2, 42).run(200).toString();
+        // the first line has the timing, which varies between runs
+        assertEquals(first.substring(first.indexOf('\n')), second.substring(second.indexOf('\n')), "results should repeat");
+    }
+
+    @Test
+    @DisplayName("Needs a board and a thread")
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, ()->new BatchSimulator(0, 1, 1), "expecting illegal argument exception for an empty board");
+        assertThrows(IllegalArgumentException.class, ()->new BatchSimulator(5, 0, 1), "expecting illegal argument exception without threads");
+    }
+}
@@ -0,0 +1,71 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitBoardTest {
+
+    @Test
+    @DisplayName("Empty board has score 0 0")
+    void initialScore() {
+        BitBoard board = new BitBoard(5);
+        assertEquals(0, board.whiteScore(), "empty board should have white score 0");
+        assertEquals(0, board.blackScore(), "empty board should have black score 0");
+        assertTrue(board.canPlay(4, 4), "canPlay into empty board valid spot is true");
+        assertThrows(IllegalArgumentException.class, ()->board.canPlay(5, 5), "expecting illegal argument exception on out of bounds canPlay(5,5)");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 11, 25, 63, 64, 65, 130})
+    @DisplayName("Bitboard plays the same games as GameModel")
+    void matchesGameModel(int size) {
+        Random rand = new Random(size);
+        for (int game = 0; game < 5; game++) {
+            Board model = new GameModel(size);
+            Board board = new BitBoard(size);
+            assertEquals(model.size(), board.size(), "size should match");
+            boolean clr = GameModel.WHITE;
+            boolean done = false;
+            while (!done) {
+                int row = rand.nextInt(size);
+                int col = rand.nextInt(size);
+                assertEquals(model.canPlay(row, col), board.canPlay(row, col), "canPlay should match");
+                if (!model.canPlay(row, col)) {
+                    continue;
+                }
+                done = model.makePlay(row, col, clr);
+                assertEquals(done, board.makePlay(row, col, clr), "game over should match");
+                assertEquals(done, board.isGameOver(), "isGameOver should match the last play");
+                assertEquals(model.moves(), board.moves(), "moves should match");
+                clr = !clr;
+                assertEquals(model.whiteSpan(), board.whiteSpan(), "white span should match");
+                assertEquals(model.blackSpan(), board.blackSpan(), "black span should match");
+                if (size < 64 || done) {
+                    assertEquals(model.whiteScore(), board.whiteScore(), "white score should match");
+                    assertEquals(model.blackScore(), board.blackScore(), "black score should match");
+                }
+            }
+            BitBoard copy = new BitBoard((GameModel) model);
+            assertEquals(model.whiteScore(), copy.whiteScore(), "copied white score should match");
+            assertEquals(model.blackScore(), copy.blackScore(), "copied black score should match");
+            assertTrue(copy.isGameOver(), "copied game should be over");
+        }
+    }
+
+    @Test
+    @DisplayName("Copies are independent of the original")
+    void copyIsIndependent() {
+        BitBoard board = new BitBoard(5);
+        board.makePlay(0, 0, GameModel.WHITE);
+        BitBoard copy = new BitBoard(board);
+        copy.makePlay(2, 2, GameModel.WHITE);
+        assertEquals(1, board.whiteScore(), "original should be unchanged");
+        assertEquals(2, copy.whiteScore(), "copy should have the new piece");
+        assertTrue(board.canPlay(2, 2), "original should still be empty at 2,2");
+    }
+}
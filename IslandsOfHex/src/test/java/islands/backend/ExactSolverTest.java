@@ -0,0 +1,158 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExactSolverTest {
+
+    /**
+     * Check every position after the moves so far against plain minimax, and that the best move keeps the outcome
+     * @return the number of positions checked
+     */
+    static int checkAll(SolvedTable table, GameModel model) {
+        boolean clr = model.move % 2 == 0;
+        assertTrue(table.contains(model), "every position of a game should be solved");
+        int outcome = table.outcome(model);
+        assertEquals(AlphaBetaPlayerTest.solve(model, clr), outcome, "outcome should match plain minimax");
+        if (model.isGameOver()) {
+            assertEquals(-1, table.bestMove(model), "a finished game has no best move");
+            return 1;
+        }
+        int best = table.bestMove(model);
+        assertTrue(table.isBest(model, best), "the best move should keep the outcome");
+        int checked = 1;
+        for (int hex = 0; hex < model.board.length; hex++) {
+            if (model.board[hex] == GameModel.EMPTY) {
+                boolean keeps = table.isBest(model, hex);
+                model.makePlay(hex / model.gameEdge, hex % model.gameEdge, clr);
+                assertEquals(keeps, -table.outcome(model) == outcome, "isBest should match the outcome after the move");
+                checked += checkAll(table, model);
+                model.unmakePlay();
+            }
+        }
+        return checked;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-3, 0, 5})
+    @DisplayName("Sizes that can't be solved are rejected")
+    void badSizes(int size) {
+        assertThrows(IllegalArgumentException.class, () -> new ExactSolver(size),
+                "expecting illegal argument exception for size " + size);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3})
+    @DisplayName("Every position matches plain minimax")
+    void matchesMinimax(int size) {
+        SolvedTable table = new ExactSolver(size).solve();
+        GameModel model = new GameModel(size);
+        assertTrue(checkAll(table, model) > 0, "expecting positions checked");
+        assertEquals(size, table.size(), "expecting the solver's size");
+    }
+
+    @Test
+    @DisplayName("Only positions that come up in a game are solved")
+    void unreachablePositions() {
+        SolvedTable table = new ExactSolver(3).solve();
+        GameModel model = new GameModel(3);
+        model.makePlay(0, 0, GameModel.BLACK);
+        assertFalse(table.contains(model), "black doesn't move first");
+        assertThrows(IllegalArgumentException.class, () -> table.outcome(model), "expecting illegal argument exception for a position not solved");
+        assertFalse(table.contains(new GameModel(4)), "expecting another size not contained");
+        model.unmakePlay();
+        model.makePlay(0, 0, GameModel.WHITE);
+        model.makePlay(1, 0, GameModel.BLACK);
+        assertTrue(table.contains(model), "expecting a position of a game");
+        assertThrows(IllegalArgumentException.class, () -> table.isBest(model, 0), "expecting illegal argument exception for a taken hex");
+    }
+
+    @Test
+    @DisplayName("A table written to a file maps back the same")
+    void writeAndMap(@TempDir Path dir) throws IOException {
+        SolvedTable table = new ExactSolver(3).solve();
+        Path file = dir.resolve("islands-3.solved");
+        table.write(file);
+        assertEquals(SolvedTable.HEADER + SolvedTable.positions(3), Files.size(file), "expecting a header and a byte per position");
+
+        SolvedTable mapped = SolvedTable.map(file);
+        assertEquals(3, mapped.size(), "expecting the size written");
+        assertEquals(table.solvedCount(), mapped.solvedCount(), "expecting the same positions solved");
+        Random rand = new Random(3);
+        for (int game = 0; game < 50; game++) {
+            GameModel model = new GameModel(3);
+            boolean done = false;
+            while (!done) {
+                assertEquals(table.outcome(model), mapped.outcome(model), "outcome should match the table written");
+                assertEquals(table.bestMove(model), mapped.bestMove(model), "best move should match the table written");
+                int hex = model.randomEmptyHex(rand);
+                done = model.makePlay(hex / 3, hex % 3, model.move % 2 == 0);
+            }
+        }
+
+        Path bad = dir.resolve("bad.solved");
+        Files.write(bad, new byte[] {'I', 'O', 'H', 'R', 1, 3});
+        assertThrows(IOException.class, () -> SolvedTable.map(bad), "expecting an IO exception for a file that isn't a table");
+    }
+
+    @Test
+    @DisplayName("The perfect player never does worse than the outcome")
+    void perfectPlayerKeepsOutcome() {
+        SolvedTable table = new ExactSolver(3).solve();
+        Random rand = new Random(7);
+        Player random = (model, clr) -> model.randomEmptyHex(rand);
+        for (boolean perfect : new boolean[] {GameModel.WHITE, GameModel.BLACK}) {
+            PerfectPlayer player = new PerfectPlayer(table, (model, clr) -> fail("expecting every position in the table"));
+            int expected = table.outcome(new GameModel(3));
+            if (perfect != GameModel.WHITE) {
+                expected = -expected;
+            }
+            for (int game = 0; game < 200; game++) {
+                GameModel model = new GameModel(3);
+                boolean clr = GameModel.WHITE;
+                boolean done = false;
+                while (!done) {
+                    int hex = (clr == perfect ? player : random).chooseMove(model, clr);
+                    done = model.makePlay(hex / 3, hex % 3, clr);
+                    clr = !clr;
+                }
+                int diff = Integer.signum(model.whiteScore() - model.blackScore());
+                assertTrue((perfect == GameModel.WHITE ? diff : -diff) >= expected, "perfect player should get at least the outcome");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Positions the table doesn't hold go to the fallback player")
+    void fallback() {
+        SolvedTable table = new ExactSolver(2).solve();
+        PerfectPlayer player = new PerfectPlayer(table, (model, clr) -> 42);
+        assertEquals(42, player.chooseMove(new GameModel(3), GameModel.WHITE), "expecting another size passed on");
+        assertEquals(42, player.chooseMove(new GameModel(2), GameModel.BLACK), "expecting a move out of turn passed on");
+        assertEquals(table.bestMove(new GameModel(2)), player.chooseMove(new GameModel(2), GameModel.WHITE), "expecting the table's move");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4})
+    @DisplayName("A full alpha-beta search only plays moves the table calls best")
+    void gradesAlphaBeta(int seed) {
+        SolvedTable table = new ExactSolver(3).solve();
+        GameModel model = AlphaBetaPlayerTest.randomPosition(3, 6, seed);
+        AlphaBetaPlayer player = new AlphaBetaPlayer(0, AlphaBetaPlayer.MAX_DEPTH, 1 << 12);
+        while (!model.isGameOver()) {
+            boolean clr = model.move % 2 == 0;
+            int hex = player.chooseMove(model, clr);
+            assertTrue(table.isBest(model, hex), "alpha-beta should keep the outcome");
+            model.makePlay(hex / 3, hex % 3, clr);
+        }
+    }
+}
@@ -5,6 +5,10 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -89,6 +93,15 @@ class GameModelTest {
             assertFalse(model.canPlay(0,0), "canPlay called on occupied spot should return false");
         }
 
+        @Test
+        void makePlayIntoOccupiedSpot() {
+            GameModel model = new GameModel(SMALL);
+            model.makePlay(0,0, GameModel.WHITE);
+            assertThrows(IllegalArgumentException.class, ()->model.makePlay(0,0, GameModel.BLACK), "makePlay on occupied spot should throw");
+            assertEquals(1, model.whiteScore(), "rejected play should not change the score");
+            assertEquals(0, model.blackScore(), "rejected play should not change the score");
+        }
+
         @Test
         void playIntoEmptySpotLarge() {
             GameModel model = new GameModel(LARGE);
@@ -246,6 +259,373 @@ class GameModelTest {
         }
     }
 
+    @Nested
+    class SpanTests {
+
+        @Test
+        @DisplayName("White diagonal line reaches top and bottom")
+        void whiteDiagonalLine() {
+            GameModel model = new GameModel(SMALL);
+            for (int i = 0; i < SMALL - 1; i++) {
+                assertFalse(model.makePlay(i, i, GameModel.WHITE), "game shouldn't be finished yet");
+            }
+            assertTrue(model.makePlay(SMALL-1, SMALL-1, GameModel.WHITE), "game should be over");
+            assertTrue(model.whiteSpan(), "white should span");
+            assertFalse(model.blackSpan(), "black should not span");
+        }
+
+        @Test
+        @DisplayName("Joining two edge islands in the middle ends the game")
+        void joinTopAndBottomIslands() {
+            GameModel model = new GameModel(SMALL);
+            model.makePlay(0,2, GameModel.WHITE);
+            model.makePlay(1,2, GameModel.WHITE);
+            model.makePlay(3,2, GameModel.WHITE);
+            assertFalse(model.makePlay(4,2, GameModel.WHITE), "game shouldn't be finished yet");
+            assertEquals(2, model.whiteScore(), "expecting two white islands");
+            assertTrue(model.makePlay(2,2, GameModel.WHITE), "game should be over");
+            assertEquals(1, model.whiteScore(), "expecting one white island");
+        }
+
+        @Test
+        @DisplayName("Anti-diagonal hexes are not connected")
+        void blackAntiDiagonalLine() {
+            GameModel model = new GameModel(SMALL);
+            for (int i = 0; i < SMALL; i++) {
+                assertFalse(model.makePlay(i, SMALL - 1 - i, GameModel.BLACK), "game shouldn't be finished yet");
+            }
+            assertEquals(SMALL, model.blackScore(), "expecting one island per hex");
+        }
+    }
+
+    @Nested
+    class UndoTests {
+
+        @Test
+        @DisplayName("Undo with nothing played throws")
+        void undoEmptyBoard() {
+            GameModel model = new GameModel(SMALL);
+            assertThrows(IllegalStateException.class, model::unmakePlay, "expecting illegal state exception undoing an empty board");
+        }
+
+        @Test
+        @DisplayName("Undo restores the hex, scores and span")
+        void undoSpanningPlay() {
+            GameModel model = new GameModel(SMALL);
+            model.makePlay(0,2, GameModel.WHITE);
+            model.makePlay(1,2, GameModel.WHITE);
+            model.makePlay(3,2, GameModel.WHITE);
+            model.makePlay(4,2, GameModel.WHITE);
+            assertTrue(model.makePlay(2,2, GameModel.WHITE), "game should be over");
+            model.unmakePlay();
+            assertTrue(model.canPlay(2,2), "undone hex should be empty");
+            assertFalse(model.whiteSpan(), "white should no longer span");
+            assertEquals(2, model.whiteScore(), "expecting two white islands again");
+            assertEquals(4, model.move, "expecting four plays left");
+            assertFalse(model.makePlay(2,2, GameModel.BLACK), "black piece doesn't end the game");
+            assertEquals(1, model.blackScore(), "expecting one black island");
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 5, 11, 25})
+        @DisplayName("Undoing a whole random game retraces every position")
+        void undoRandomGame(int size) {
+            Random rand = new Random(size);
+            GameModel model = new GameModel(size);
+            int[] white = new int[size * size + 1];
+            int[] black = new int[size * size + 1];
+            boolean[] spans = new boolean[size * size + 1];
+            boolean clr = GameModel.WHITE;
+            boolean done = false;
+            while (!done) {
+                int row = rand.nextInt(size);
+                int col = rand.nextInt(size);
+                if (!model.canPlay(row, col)) {
+                    continue;
+                }
+                done = model.makePlay(row, col, clr);
+                clr = !clr;
+                white[model.move] = model.whiteScore();
+                black[model.move] = model.blackScore();
+                spans[model.move] = model.whiteSpan() || model.blackSpan();
+            }
+            while (model.move > 0) {
+                assertEquals(white[model.move], model.whiteScore(), "white score should match the same move");
+                assertEquals(black[model.move], model.blackScore(), "black score should match the same move");
+                assertEquals(spans[model.move], model.whiteSpan() || model.blackSpan(), "span should match the same move");
+                model.unmakePlay();
+            }
+            assertEquals(0, model.whiteScore(), "empty board should have white score 0");
+            assertEquals(0, model.blackScore(), "empty board should have black score 0");
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    assertTrue(model.canPlay(row, col), "every hex should be empty again");
+                }
+            }
+        }
+    }
+
+    @Nested
+    class ResetTests {
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 5, 11, 25})
+        @DisplayName("A reset game plays the same as a new one")
+        void resetMatchesNewGame(int size) {
+            Random rand = new Random(size);
+            GameModel model = new GameModel(size);
+            // play a game half through, then a whole one, from random empty hexes
+            for (int i = 0; i < size * size / 2; i++) {
+                int hex = model.randomEmptyHex(rand);
+                model.makePlay(hex / size, hex % size, i % 2 == 0);
+            }
+            for (int round = 0; round < 2; round++) {
+                model.reset();
+                GameModel fresh = new GameModel(size);
+                assertEquals(0, model.move, "expecting no plays after reset");
+                assertEquals(0, model.hash(), "expecting the empty board hash after reset");
+                assertEquals(size * size, model.emptyCount(), "expecting every hex empty after reset");
+                for (int row = 0; row < size; row++) {
+                    for (int col = 0; col < size; col++) {
+                        assertTrue(model.canPlay(row, col), "every hex should be playable after reset");
+                    }
+                }
+                boolean clr = GameModel.WHITE;
+                boolean done = false;
+                while (!done) {
+                    int hex = rand.nextInt(size * size);
+                    if (!fresh.canPlay(hex / size, hex % size)) {
+                        continue;
+                    }
+                    done = model.makePlay(hex / size, hex % size, clr);
+                    assertEquals(fresh.makePlay(hex / size, hex % size, clr), done, "game should end on the same play");
+                    assertEquals(fresh.whiteScore(), model.whiteScore(), "white score should match a new game");
+                    assertEquals(fresh.blackScore(), model.blackScore(), "black score should match a new game");
+                    assertEquals(fresh.hash(), model.hash(), "hash should match a new game");
+                    clr = !clr;
+                }
+                assertEquals(fresh.whiteSpan(), model.whiteSpan(), "white span should match a new game");
+                assertEquals(fresh.blackSpan(), model.blackSpan(), "black span should match a new game");
+            }
+        }
+    }
+
+    @Nested
+    class TopologyTests {
+
+        @Test
+        @DisplayName("Games of one size share one topology")
+        void sharedPerSize() {
+            assertSame(BoardTopology.of(MEDIUM), BoardTopology.of(MEDIUM), "expecting one topology per size");
+            assertSame(new GameModel(SMALL).topology, new GameModel(SMALL).topology, "expecting games to share the topology");
+            assertNotSame(BoardTopology.of(SMALL), BoardTopology.of(MEDIUM), "expecting a topology for each size");
+            assertThrows(IllegalArgumentException.class, () -> BoardTopology.of(-1), "expecting illegal argument exception for a negative size");
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 2, 5, 11})
+        @DisplayName("Neighbors are the six steps that stay on the board")
+        void neighborsOnBoard(int size) {
+            BoardTopology topology = BoardTopology.of(size);
+            assertEquals(size, topology.edge(), "expecting the topology's size");
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int hex = row * size + col;
+                    for (int dir = 0; dir < BoardTopology.DIRECTIONS; dir++) {
+                        int r = row + GameModel.ROW_STEPS[dir];
+                        int c = col + GameModel.COL_STEPS[dir];
+                        boolean onBoard = r >= 0 && r < size && c >= 0 && c < size;
+                        assertEquals(onBoard, topology.hasNeighbor(hex, dir), "neighbor of " + row + "," + col + " in direction " + dir);
+                        if (onBoard) {
+                            assertEquals(r * size + c, topology.neighbor(hex, dir), "neighbor of " + row + "," + col + " in direction " + dir);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class EmptyHexTests {
+
+        @Test
+        @DisplayName("Empty hexes are exactly the hexes canPlay accepts, through plays and undos")
+        void emptyHexesMatchBoard() {
+            Random rand = new Random(3);
+            GameModel model = new GameModel(MEDIUM);
+            // some plays before the empty hexes are first asked for
+            for (int col = 0; col < MEDIUM; col++) {
+                model.makePlay(col % 3, col, col % 2 == 0);
+            }
+            for (int step = 0; step < 400; step++) {
+                if (model.move > 0 && (model.emptyCount() == 0 || rand.nextInt(3) == 0 || model.isGameOver())) {
+                    model.unmakePlay();
+                } else {
+                    int hex = model.randomEmptyHex(rand);
+                    assertTrue(model.canPlay(hex / MEDIUM, hex % MEDIUM), "random empty hex should be playable");
+                    model.makePlay(hex / MEDIUM, hex % MEDIUM, rand.nextBoolean());
+                }
+                assertEquals(MEDIUM * MEDIUM - model.move, model.emptyCount(), "empty count should match the moves");
+                Set<Integer> empty = new HashSet<>();
+                for (int i = 0; i < model.emptyCount(); i++) {
+                    empty.add(model.emptyHex(i));
+                }
+                for (int hex = 0; hex < MEDIUM * MEDIUM; hex++) {
+                    assertEquals(model.canPlay(hex / MEDIUM, hex % MEDIUM), empty.contains(hex), "empty hexes should match canPlay");
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Full board has no random empty hex")
+        void fullBoard() {
+            GameModel model = new GameModel(1);
+            model.makePlay(0,0, GameModel.WHITE);
+            assertEquals(0, model.emptyCount(), "expecting no empty hexes");
+            assertThrows(IllegalStateException.class, ()->model.randomEmptyHex(new Random()), "expecting illegal state exception on a full board");
+        }
+    }
+
+    @Nested
+    class HashTests {
+
+        @Test
+        @DisplayName("Empty board hashes to 0")
+        void emptyBoard() {
+            assertEquals(0L, new GameModel(SMALL).hash(), "expecting hash 0 for an empty board");
+        }
+
+        @Test
+        @DisplayName("The same pieces played in another order give the same hash")
+        void transposition() {
+            GameModel first = new GameModel(SMALL);
+            first.makePlay(0,0, GameModel.WHITE);
+            first.makePlay(1,1, GameModel.BLACK);
+            first.makePlay(2,2, GameModel.WHITE);
+            GameModel second = new GameModel(SMALL);
+            second.makePlay(2,2, GameModel.WHITE);
+            second.makePlay(0,0, GameModel.WHITE);
+            second.makePlay(1,1, GameModel.BLACK);
+            assertEquals(first.hash(), second.hash(), "transposed plays should hash the same");
+            assertEquals(first.hash(), new GameModel(first).hash(), "copy should hash the same");
+        }
+
+        @Test
+        @DisplayName("Color of a piece changes the hash")
+        void colorMatters() {
+            GameModel white = new GameModel(SMALL);
+            white.makePlay(2,2, GameModel.WHITE);
+            GameModel black = new GameModel(SMALL);
+            black.makePlay(2,2, GameModel.BLACK);
+            assertNotEquals(white.hash(), black.hash(), "white and black pieces should hash differently");
+        }
+
+        @Test
+        @DisplayName("Undo restores every earlier hash")
+        void undoRestoresHash() {
+            Random rand = new Random(11);
+            GameModel model = new GameModel(MEDIUM);
+            long[] hashes = new long[MEDIUM * MEDIUM + 1];
+            Set<Long> seen = new HashSet<>();
+            boolean done = false;
+            while (!done) {
+                int hex = model.randomEmptyHex(rand);
+                done = model.makePlay(hex / MEDIUM, hex % MEDIUM, model.move % 2 == 0);
+                hashes[model.move] = model.hash();
+                assertTrue(seen.add(model.hash()), "every position along a game should hash differently");
+            }
+            while (model.move > 0) {
+                assertEquals(hashes[model.move], model.hash(), "hash should match the same move");
+                model.unmakePlay();
+            }
+            assertEquals(0L, model.hash(), "expecting hash 0 after undoing everything");
+        }
+    }
+
+    @Nested
+    class SnapshotTests {
+
+        /**
+         * Assert two games are in the same state, down to where the empty hexes are kept
+         */
+        void assertSameGame(GameModel expected, GameModel actual) {
+            assertEquals(expected.move, actual.move, "expecting the same move");
+            assertEquals(expected.hash(), actual.hash(), "expecting the same hash");
+            assertEquals(expected.whiteScore(), actual.whiteScore(), "expecting the same white score");
+            assertEquals(expected.blackScore(), actual.blackScore(), "expecting the same black score");
+            assertEquals(expected.whiteSpan(), actual.whiteSpan(), "expecting the same white span");
+            assertEquals(expected.blackSpan(), actual.blackSpan(), "expecting the same black span");
+            assertArrayEquals(expected.board, actual.board, "expecting the same board");
+            for (int i = 0; i < expected.emptyCount(); i++) {
+                assertEquals(expected.emptyHex(i), actual.emptyHex(i), "expecting the same empty hexes");
+            }
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 5, 11, 25})
+        @DisplayName("A restored game plays on and undoes exactly like the original")
+        void restoreMidGame(int size) {
+            Random rand = new Random(size);
+            GameModel model = new GameModel(size);
+            for (int i = 0; i < size * size / 2; i++) {
+                int hex = model.randomEmptyHex(rand);
+                model.makePlay(hex / size, hex % size, i % 2 == 0);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(model.snapshotSize());
+            model.snapshot(buffer);
+            assertEquals(0, buffer.remaining(), "snapshot should fill exactly snapshotSize bytes");
+            buffer.flip();
+            GameModel restored = new GameModel(buffer);
+            assertSameGame(model, restored);
+
+            Random again = new Random(7);
+            rand = new Random(7);
+            boolean done = model.isGameOver();
+            while (!done) {
+                int hex = model.randomEmptyHex(rand);
+                assertEquals(hex, restored.randomEmptyHex(again), "expecting the same random hexes");
+                done = model.makePlay(hex / size, hex % size, model.move % 2 == 0);
+                assertEquals(done, restored.makePlay(hex / size, hex % size, restored.move % 2 == 0), "expecting the same end of game");
+            }
+            assertSameGame(model, restored);
+            while (restored.move > 0) {
+                model.unmakePlay();
+                restored.unmakePlay();
+            }
+            assertSameGame(model, restored);
+            assertEquals(0L, restored.hash(), "expecting an empty board after undoing everything");
+        }
+
+        @Test
+        @DisplayName("Restore reuses a game of the same size, even one that never listed empty hexes")
+        void restoreInto() {
+            GameModel model = new GameModel(MEDIUM);
+            model.makePlay(3,4, GameModel.WHITE);
+            model.makePlay(4,4, GameModel.BLACK);
+            ByteBuffer buffer = ByteBuffer.allocate(model.snapshotSize());
+            model.snapshot(buffer);
+            buffer.flip();
+            GameModel other = new GameModel(MEDIUM);
+            other.randomEmptyHex(new Random(1));
+            other.makePlay(0,0, GameModel.WHITE);
+            other.restore(buffer);
+            assertSameGame(model, other);
+            other.unmakePlay();
+            assertTrue(other.canPlay(4,4), "expecting the last play undone");
+        }
+
+        @Test
+        @DisplayName("Restoring a different size or something else throws")
+        void restoreRejectsMismatch() {
+            GameModel model = new GameModel(SMALL);
+            ByteBuffer buffer = ByteBuffer.allocate(model.snapshotSize());
+            model.snapshot(buffer);
+            buffer.flip();
+            assertThrows(IllegalArgumentException.class, ()->new GameModel(MEDIUM).restore(buffer.duplicate()), "expecting illegal argument exception for another size");
+            assertThrows(IllegalArgumentException.class, ()->new GameModel(ByteBuffer.allocate(64)), "expecting illegal argument exception without a snapshot");
+        }
+    }
+
     @Nested
     class EfficiencyTests {
 
@@ -0,0 +1,137 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRecordTest {
+
+    @TempDir
+    Path dir;
+
+    static GameModel randomGame(int size, long seed) {
+        Random rand = new Random(seed);
+        GameModel model = new GameModel(size);
+        boolean clr = GameModel.WHITE;
+        boolean done = false;
+        while (!done) {
+            int hex = model.randomEmptyHex(rand);
+            done = model.makePlay(hex / size, hex % size, clr);
+            clr = !clr;
+        }
+        return model;
+    }
+
+    @Test
+    @DisplayName("Games written move by move read back the same, across window boundaries")
+    void roundTrip() throws IOException {
+        Path file = dir.resolve("games.iohr");
+        GameModel[] models = new GameModel[20];
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            for (int g = 0; g < models.length; g++) {
+                Random rand = new Random(g);
+                int size = 1 + g % 12;
+                boolean timed = g % 2 == 0;
+                writer.beginGame(size, "white " + g, "bl\u00e4ck " + g, timed);
+                GameModel model = new GameModel(size);
+                boolean clr = GameModel.WHITE;
+                boolean done = false;
+                while (!done) {
+                    int hex = model.randomEmptyHex(rand);
+                    done = model.makePlay(hex / size, hex % size, clr);
+                    if (timed) {
+                        writer.move(hex, clr, 1000L * model.move);
+                    } else {
+                        writer.move(hex, clr);
+                    }
+                    clr = !clr;
+                }
+                writer.endGame();
+                models[g] = model;
+            }
+            assertEquals(models.length, writer.games(), "expecting every game counted");
+        }
+        // a tiny window makes the reader remap many times
+        try (GameRecordReader reader = new GameRecordReader(file, 7)) {
+            for (int g = 0; g < models.length; g++) {
+                assertTrue(reader.next(), "expecting game " + g);
+                GameModel model = models[g];
+                assertEquals(model.gameEdge, reader.size(), "expecting the same size");
+                assertEquals("white " + g, reader.whitePlayer(), "expecting the same white player");
+                assertEquals("bl\u00e4ck " + g, reader.blackPlayer(), "expecting the same black player");
+                assertEquals(g % 2 == 0, reader.timed(), "expecting the same timing flag");
+                assertEquals(model.move, reader.moveCount(), "expecting the same number of moves");
+                for (int i = 0; i < reader.moveCount(); i++) {
+                    assertEquals(model.plays[i], reader.hex(i), "expecting the same hex");
+                    assertEquals(model.board[model.plays[i]] == GameModel.WHITE_TILE, reader.color(i), "expecting the same color");
+                    assertEquals(reader.timed() ? 1000L * (i + 1) : 0, reader.micros(i), "expecting the same time");
+                }
+                GameModel replayed = reader.replay();
+                assertEquals(model.hash(), replayed.hash(), "replay should reach the same position");
+                assertEquals(model.whiteScore(), replayed.whiteScore(), "replay should give the same white score");
+                assertEquals(model.blackScore(), replayed.blackScore(), "replay should give the same black score");
+            }
+            assertFalse(reader.next(), "expecting the end of the archive");
+            assertEquals(models.length, reader.games(), "expecting every game read");
+        }
+    }
+
+    @Test
+    @DisplayName("Batch games are archived whole and compactly")
+    void batchArchive() throws IOException {
+        Path file = dir.resolve("batch.iohr");
+        BatchSimulator.Results results;
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            results = new BatchSimulator(11, 3, 5).run(300, writer);
+        }
+        long moves = 0;
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            while (reader.next()) {
+                GameModel model = reader.replay();
+                assertTrue(model.isGameOver(), "archived games should be finished");
+                moves += reader.moveCount();
+            }
+            assertEquals(300, reader.games(), "expecting every game archived");
+        }
+        assertEquals(results.meanLength() * 300, moves, 1e-6, "expecting every move archived");
+        assertTrue(Files.size(file) < moves * 2 + 300 * 16, "moves on 11x11 should take at most two bytes");
+    }
+
+    @Test
+    @DisplayName("Files that aren't archives or end early are rejected")
+    void rejectsBadFiles() throws IOException {
+        Path junk = dir.resolve("junk");
+        Files.write(junk, new byte[] {'n', 'o', 'p', 'e', 1});
+        assertThrows(IOException.class, ()->new GameRecordReader(junk), "expecting an IOException for a bad header");
+
+        Path cut = dir.resolve("cut.iohr");
+        try (GameRecordWriter writer = new GameRecordWriter(cut)) {
+            writer.writeGame(randomGame(5, 1), "a", "b");
+        }
+        byte[] bytes = Files.readAllBytes(cut);
+        Files.write(cut, Arrays.copyOf(bytes, bytes.length - 1));
+        try (GameRecordReader reader = new GameRecordReader(cut)) {
+            assertThrows(IOException.class, reader::next, "expecting an IOException for a game cut short");
+        }
+    }
+
+    @Test
+    @DisplayName("Moves need a game of the right kind")
+    void writerChecksState() throws IOException {
+        try (GameRecordWriter writer = new GameRecordWriter(OutputStream.nullOutputStream())) {
+            assertThrows(IllegalStateException.class, ()->writer.move(0, GameModel.WHITE), "expecting illegal state exception outside a game");
+            writer.beginGame(5, "a", "b", true);
+            assertThrows(IllegalStateException.class, ()->writer.move(0, GameModel.WHITE), "expecting illegal state exception without a time");
+            assertThrows(IllegalArgumentException.class, ()->writer.move(25, GameModel.WHITE, 0), "expecting illegal argument exception off the board");
+            assertThrows(IllegalStateException.class, ()->writer.beginGame(5, "a", "b", false), "expecting illegal state exception inside a game");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IslandLabelerTest {
+
+    final int SUPER_LARGE = 2500;
+
+    IslandLabeler labeler;
+
+    @BeforeEach
+    void init() {
+        labeler = new IslandLabeler();
+    }
+
+    @Test
+    @DisplayName("Empty board has no islands")
+    void emptyBoard() {
+        labeler.label(new GameModel(5));
+        assertEquals(0, labeler.whiteIslands(), "expecting white islands = 0");
+        assertEquals(0, labeler.blackIslands(), "expecting black islands = 0");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 11, 25})
+    @DisplayName("Labeling agrees with the incremental scores after every play")
+    void matchesIncrementalScores(int size) {
+        Random rand = new Random(size);
+        for (int game = 0; game < 20; game++) {
+            GameModel model = new GameModel(size);
+            boolean clr = GameModel.WHITE;
+            boolean done = false;
+            while (!done) {
+                int row = rand.nextInt(size);
+                int col = rand.nextInt(size);
+                if (!model.canPlay(row, col)) {
+                    continue;
+                }
+                done = model.makePlay(row, col, clr);
+                clr = !clr;
+                labeler.label(model);
+                assertEquals(labeler.whiteIslands(), model.whiteScore(), "white score should match labeling");
+                assertEquals(labeler.blackIslands(), model.blackScore(), "black score should match labeling");
+                assertEquals(labeler.whiteSpan(), model.whiteSpan(), "white span should match labeling");
+                assertEquals(labeler.blackSpan(), model.blackSpan(), "black span should match labeling");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 1", "2, 2", "5, 2", "11, 3", "25, 7", "100, 100", "300, 16"})
+    @DisplayName("Labeling in stripes agrees with labeling in one sweep")
+    void stripesMatchSweep(int size, int stripes) {
+        Random rand = new Random(size * 31 + stripes);
+        IslandLabeler striped = new IslandLabeler();
+        for (int board = 0; board < 20; board++) {
+            byte[] hexes = new byte[size * size];
+            // from sparse to full, so islands both stay apart and run across stripes
+            double full = (board + 1) / 20.0;
+            for (int hex = 0; hex < hexes.length; hex++) {
+                if (rand.nextDouble() < full) {
+                    hexes[hex] = rand.nextBoolean() ? GameModel.WHITE_TILE : GameModel.BLACK_TILE;
+                }
+            }
+            labeler.label(hexes, size);
+            striped.labelParallel(hexes, size, stripes);
+            assertEquals(labeler.whiteIslands(), striped.whiteIslands(), "white islands should match");
+            assertEquals(labeler.blackIslands(), striped.blackIslands(), "black islands should match");
+            assertEquals(labeler.whiteSpan(), striped.whiteSpan(), "white span should match");
+            assertEquals(labeler.blackSpan(), striped.blackSpan(), "black span should match");
+        }
+    }
+
+    @Test
+    @DisplayName("One island covering a SUPER_LARGE board, labeled in parallel")
+    void superLargeSingleIslandParallel() {
+        GameModel model = new GameModel(SUPER_LARGE);
+        // a snake through every row crosses every stripe boundary
+        for (int row = 0; row < SUPER_LARGE; row++) {
+            for (int col = 0; col < SUPER_LARGE; col++) {
+                if (row % 2 == 0 || col == (row % 4 == 1 ? SUPER_LARGE - 1 : 0)) {
+                    model.makePlay(row, col, GameModel.BLACK);
+                }
+            }
+        }
+        labeler.labelParallel(model);
+        assertEquals(1, labeler.blackIslands(), "expecting one black island");
+        assertEquals(0, labeler.whiteIslands(), "expecting no white islands");
+        assertTrue(labeler.blackSpan(), "black island should span");
+        assertFalse(labeler.whiteSpan(), "no white island to span");
+    }
+
+    @Test
+    @DisplayName("One island covering a SUPER_LARGE board")
+    void superLargeSingleIsland() {
+        GameModel model = new GameModel(SUPER_LARGE);
+        // a snake through every row keeps the flood fill as deep as possible
+        for (int row = 0; row < SUPER_LARGE; row++) {
+            for (int col = 0; col < SUPER_LARGE; col++) {
+                if (row % 2 == 0 || col == (row % 4 == 1 ? SUPER_LARGE - 1 : 0)) {
+                    model.makePlay(row, col, GameModel.BLACK);
+                }
+            }
+        }
+        labeler.label(model);
+        assertEquals(1, labeler.blackIslands(), "expecting one black island");
+        assertEquals(model.blackScore(), labeler.blackIslands(), "black score should match labeling");
+        assertTrue(labeler.blackSpan(), "black island should span");
+    }
+}
@@ -0,0 +1,115 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonteCarloPlayerTest {
+
+    MonteCarloPlayer player;
+
+    @BeforeEach
+    void init() {
+        player = new MonteCarloPlayer(2, 0, 2000, 42);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        player.shutdown();
+    }
+
+    @Test
+    @DisplayName("Chooses an empty hex and leaves the game unchanged")
+    void choosesLegalMove() {
+        GameModel model = new GameModel(5);
+        model.makePlay(2, 2, GameModel.WHITE);
+        model.makePlay(1, 1, GameModel.BLACK);
+        int hex = player.chooseMove(model, GameModel.WHITE);
+        assertTrue(model.canPlay(hex / 5, hex % 5), "chosen hex should be empty");
+        assertEquals(2, model.move, "model should be left as it was");
+        assertEquals(1, model.whiteScore(), "white score should be unchanged");
+        assertEquals(1, model.blackScore(), "black score should be unchanged");
+    }
+
+    @Test
+    @DisplayName("Runs exactly the playout budget")
+    void honorsPlayoutBudget() {
+        player.chooseMove(new GameModel(5), GameModel.BLACK);
+        assertEquals(2000, player.lastPlayouts(), "expecting the whole playout budget");
+        assertTrue(player.lastPlayoutsPerSecond() > 0, "expecting a playout rate");
+    }
+
+    @Test
+    @DisplayName("Moves chosen on several threads at once are each legal and complete")
+    void concurrentMoves() throws Exception {
+        ExecutorService games = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Integer>> moves = new ArrayList<>();
+            for (int game = 0; game < 6; game++) {
+                GameModel model = new GameModel(3 + game % 3);
+                moves.add(games.submit(() -> player.chooseMove(model, GameModel.WHITE)));
+            }
+            for (int game = 0; game < 6; game++) {
+                int size = 3 + game % 3;
+                int hex = moves.get(game).get();
+                assertTrue(hex >= 0 && hex < size * size, "chosen hex should be on the board");
+            }
+            assertEquals(2000, player.lastPlayouts(), "expecting the whole playout budget of one move");
+        } finally {
+            games.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Takes the last hex when only one is left")
+    void onlyMoveLeft() {
+        GameModel model = new GameModel(2);
+        model.makePlay(0, 1, GameModel.WHITE);
+        model.makePlay(1, 0, GameModel.BLACK);
+        model.makePlay(0, 0, GameModel.BLACK);
+        assertEquals(3, player.chooseMove(model, GameModel.WHITE), "expecting the only empty hex");
+    }
+
+    @Test
+    @DisplayName("Keeps to the time budget even when one playout would take longer")
+    void playoutsStopAtDeadline() {
+        MonteCarloPlayer timed = new MonteCarloPlayer(1, 100, 0, 42);
+        try {
+            GameModel model = new GameModel(2500);
+            model.makePlay(0, 0, GameModel.WHITE);
+            long start = System.nanoTime();
+            int hex = timed.chooseMove(model, GameModel.BLACK);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(millis < 1500, "expecting the move close to the budget, took " + millis + " ms");
+            assertTrue(model.canPlay(hex / 2500, hex % 2500), "chosen hex should be empty");
+            assertEquals(1, model.move, "model should be left as it was");
+        } finally {
+            timed.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Expands every move of a small board")
+    void expandsEveryMove() {
+        GameModel model = new GameModel(3);
+        model.makePlay(1, 1, GameModel.WHITE);
+        for (int i = 0; i < 20; i++) {
+            int hex = player.chooseMove(model, GameModel.BLACK);
+            assertTrue(model.canPlay(hex / 3, hex % 3), "chosen hex should be empty");
+        }
+        assertEquals(2000, player.lastPlayouts(), "expecting the whole playout budget");
+    }
+
+    @Test
+    @DisplayName("Needs a thread and a budget")
+    void rejectsMissingBudget() {
+        assertThrows(IllegalArgumentException.class, ()->new MonteCarloPlayer(1, 0, 0, 1), "expecting illegal argument exception without a budget");
+        assertThrows(IllegalArgumentException.class, ()->new MonteCarloPlayer(0, 10, 0, 1), "expecting illegal argument exception without threads");
+    }
+}
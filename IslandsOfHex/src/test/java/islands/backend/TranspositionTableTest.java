@@ -0,0 +1,109 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {-5, 0, 7, 12345})
+    @DisplayName("Packed data unpacks to the same fields")
+    void packRoundTrip(int score) {
+        long data = TranspositionTable.pack(score, 17, TranspositionTable.LOWER, 6_249_999);
+        assertNotEquals(TranspositionTable.MISS, data, "packed data should never look like a miss");
+        assertEquals(score, TranspositionTable.score(data), "expecting the same score");
+        assertEquals(17, TranspositionTable.depth(data), "expecting the same depth");
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data), "expecting the same bound");
+        assertEquals(6_249_999, TranspositionTable.move(data), "expecting the same move");
+        assertEquals(-1, TranspositionTable.move(TranspositionTable.pack(0, 0, TranspositionTable.EXACT, -1)), "expecting no move");
+    }
+
+    @Test
+    @DisplayName("Stored positions are found and counted as hits")
+    void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1000);
+        assertEquals(1024, table.capacity(), "capacity should round up to a power of two");
+        long data = TranspositionTable.pack(3, 2, TranspositionTable.EXACT, 12);
+        assertEquals(TranspositionTable.MISS, table.probe(42), "expecting a miss on an empty table");
+        table.store(42, data);
+        assertEquals(data, table.probe(42), "expecting the stored data");
+        assertEquals(2, table.probes(), "expecting two probes");
+        assertEquals(1, table.hits(), "expecting one hit");
+        assertEquals(0.5, table.hitRate(), 1e-9, "expecting half the probes to hit");
+    }
+
+    @Test
+    @DisplayName("The largest capacity accepted still indexes one array of longs")
+    void largestCapacity() {
+        int max = TranspositionTable.MAX_CAPACITY;
+        assertEquals(max, TranspositionTable.entriesFor(max), "expecting the largest capacity kept");
+        assertEquals(max, TranspositionTable.entriesFor(max / 2 + 1), "expecting a capacity rounded up to the largest");
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(max + 1), "expecting illegal argument exception above the largest capacity");
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0), "expecting illegal argument exception for no entries");
+        // every slot of the largest table, and the long after it, must land inside an array of 2 * max longs
+        int last = TranspositionTable.slot(0xFFFFFFFFL, max - 1);
+        assertEquals(2 * max - 2, last, "expecting the last slot at the end of the array");
+        assertTrue(last + 1 < 2 * max && 2 * max > 0, "expecting the last entry to fit in the array");
+    }
+
+    @Test
+    @DisplayName("Another position in the same slot is a collision, not a hit")
+    void collision() {
+        TranspositionTable table = new TranspositionTable(16);
+        table.store(1, TranspositionTable.pack(1, 1, TranspositionTable.EXACT, 1));
+        assertEquals(TranspositionTable.MISS, table.probe(1 + (1L << 40)), "expecting a miss for another position");
+        assertEquals(1, table.collisions(), "expecting one collision");
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(1), "expecting a miss after clear");
+        assertEquals(0, table.collisions(), "expecting counters reset by clear");
+    }
+
+    @Test
+    @DisplayName("A shallower result doesn't replace a deeper one for the same position")
+    void keepsDeeperResult() {
+        TranspositionTable table = new TranspositionTable(16);
+        long deep = TranspositionTable.pack(5, 6, TranspositionTable.EXACT, 3);
+        table.store(9, deep);
+        table.store(9, TranspositionTable.pack(1, 2, TranspositionTable.EXACT, 4));
+        assertEquals(deep, table.probe(9), "expecting the deeper result");
+        long other = TranspositionTable.pack(1, 0, TranspositionTable.UPPER, 4);
+        table.store(9 + 16, other);
+        assertEquals(other, table.probe(9 + 16), "a different position should replace it");
+    }
+
+    @Test
+    @DisplayName("Threads sharing a small table never read torn entries")
+    void concurrentStores() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(64);
+        Thread[] threads = new Thread[4];
+        boolean[] torn = new boolean[threads.length];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom rand = new SplittableRandom(id);
+                for (int i = 0; i < 200_000; i++) {
+                    long hash = rand.nextLong(1 << 12);
+                    // the data is derived from the hash so any mix-up shows
+                    table.store(hash, TranspositionTable.pack((int) hash, id, TranspositionTable.EXACT, (int) hash));
+                    long data = table.probe(rand.nextLong(1 << 12));
+                    if (data != TranspositionTable.MISS && TranspositionTable.score(data) != TranspositionTable.move(data)) {
+                        torn[id] = true;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (boolean t : torn) {
+            assertFalse(t, "expecting only whole entries");
+        }
+        assertTrue(table.hits() > 0 && table.collisions() > 0, "expecting both hits and collisions");
+    }
+}
@@ -0,0 +1,179 @@
+package islands.frontend;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HexGridTest {
+
+    @BeforeEach
+    void init() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    /**
+     * The first hexagon in row order holding the point, by testing every one
+     */
+    static Optional<Point> scan(HexGrid grid, int y, int x) {
+        for (int row = 0; row < grid.size; row++) {
+            for (int col = 0; col < grid.size; col++) {
+                if (grid.contains(row, col, x, y)) {
+                    return Optional.of(new Point(col, row));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // the sizes and hexagon lengths Game uses, plus a large board
+    @ParameterizedTest
+    @CsvSource({"5, 35", "11, 20", "25, 10", "50, 5"})
+    @DisplayName("Hit testing finds the same hexagon as testing every one")
+    void matchesScan(int size, int length) {
+        HexGrid grid = new HexGrid(size, length);
+        Random rand = new Random(size);
+        int hits = 0;
+        for (int i = 0; i < 20_000; i++) {
+            int x = rand.nextInt(Game.BOARD_WIDTH + 200) - 100;
+            int y = rand.nextInt(Game.BOARD_HEIGHT + 200) - 100;
+            Optional<Point> expected = scan(grid, y, x);
+            assertEquals(expected, grid.getHexDim(y, x), "expecting the same hexagon at " + x + "," + y);
+            hits += expected.isPresent() ? 1 : 0;
+        }
+        assertTrue(hits > 0, "expecting some points on the board");
+    }
+
+    @Test
+    @DisplayName("A colored hexagon shows in the next paint, the rest stays as it was")
+    void paintsChangedHexagon() {
+        HexGrid grid = new HexGrid(5, 25);
+        BufferedImage screen = new BufferedImage(Game.BOARD_WIDTH, Game.BOARD_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        grid.paintComponent(screen.getGraphics());
+        Point changed = center(grid, 2, 3);
+        Point unchanged = center(grid, 1, 1);
+        assertEquals(Color.LIGHT_GRAY.getRGB(), screen.getRGB(changed.x, changed.y), "expecting an empty hexagon");
+
+        grid.setColor(2, 3, islands.middle.GameController.WHITE);
+        grid.setColor(1, 1, islands.middle.GameController.BLACK);
+        grid.setColor(1, 1, islands.middle.GameController.WHITE);
+        grid.paintComponent(screen.getGraphics());
+        assertEquals(Color.WHITE.getRGB(), screen.getRGB(changed.x, changed.y), "expecting the new white piece");
+        assertEquals(Color.WHITE.getRGB(), screen.getRGB(unchanged.x, unchanged.y), "expecting the last color set");
+        Point empty = center(grid, 4, 4);
+        assertEquals(Color.LIGHT_GRAY.getRGB(), screen.getRGB(empty.x, empty.y), "expecting other hexagons unchanged");
+    }
+
+    static Point center(HexGrid grid, int row, int col) {
+        Rectangle bounds = grid.bounds(row, col);
+        return new Point((int) bounds.getCenterX(), (int) bounds.getCenterY());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"10", "20", "25", "35"})
+    @DisplayName("The shared shape has the true corners rounded down")
+    void sharedShapeCorners(int length) {
+        Hexagon hexagon = Hexagon.ofLength(length);
+        assertSame(hexagon, Hexagon.ofLength(length), "expecting one shape per length");
+        int halfHeight = (int) Math.floor(length * Math.sqrt(3) / 2);
+        assertEquals(new Rectangle(100 - length, 200 - halfHeight - 1, 2 * length, 2 * halfHeight + 1), hexagon.getBounds(100, 200), "expecting the bounds of the true corners");
+        assertTrue(hexagon.contains(100, 200, 100, 200), "expecting the center inside");
+        assertTrue(hexagon.contains(100, 200, 100 - length + 1, 200), "expecting next to the left corner inside");
+        assertFalse(hexagon.contains(100, 200, 100 + length, 200 + 1), "expecting past the right corner outside");
+        assertFalse(hexagon.contains(100, 200, 100, 200 + halfHeight + 1), "expecting below the bottom outside");
+    }
+
+    @Timeout(value = 1000, unit = TimeUnit.MILLISECONDS)
+    @Test
+    @DisplayName("A 2500x2500 grid is quick to make and to hit test")
+    void superLargeGrid() {
+        HexGrid grid = new HexGrid(2500, 3);
+        assertEquals(2500 * 2500, grid.colors.length, "expecting a byte per hex");
+        Rectangle bounds = grid.bounds(0, 0);
+        assertEquals(Optional.of(new Point(0, 0)), grid.getHexDim((int) bounds.getCenterY(), (int) bounds.getCenterX()), "expecting the corner hexagon");
+    }
+
+    @Test
+    @DisplayName("Zooming keeps the hexagon under the mouse, panning moves it with the board")
+    void zoomAndPan() {
+        HexGrid grid = new HexGrid(11, 20);
+        Point mouse = center(grid, 5, 5);
+        grid.zoom(3, mouse.x, mouse.y);
+        assertEquals(3, grid.getZoom(), 1e-9, "expecting the new zoom");
+        assertEquals(Optional.of(new Point(5, 5)), grid.getHexDim(mouse.y, mouse.x), "expecting the same hexagon under the mouse");
+        grid.zoom(0.1, mouse.x, mouse.y);
+        assertEquals(Optional.of(new Point(5, 5)), grid.getHexDim(mouse.y, mouse.x), "expecting the same hexagon zoomed out");
+        grid.zoom(10 / 3.0, 0, 0);
+        grid.pan(-40, 17);
+        Point moved = center(grid, 5, 5);
+        assertEquals(Optional.of(new Point(5, 5)), grid.getHexDim(moved.y, moved.x), "expecting the hexagon where it was moved to");
+        centersMapBack(grid);
+    }
+
+    @Test
+    @DisplayName("Zoomed out, blocks take the average color of their hexagons")
+    void blocksWhenZoomedOut() {
+        HexGrid grid = new HexGrid(50, 10);
+        grid.zoom(1 / 16.0, 0, 0);
+        BufferedImage screen = new BufferedImage(Game.BOARD_WIDTH, Game.BOARD_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        grid.paintComponent(screen.getGraphics());
+        Point middle = center(grid, 25, 25);
+        assertEquals(Color.LIGHT_GRAY.getRGB(), screen.getRGB(middle.x, middle.y), "expecting empty hexagons");
+        assertEquals(0, screen.getRGB(Game.BOARD_WIDTH - 1, Game.BOARD_HEIGHT - 1), "expecting nothing drawn off the board");
+
+        for (int color : new int[] {islands.middle.GameController.WHITE, islands.middle.GameController.BLACK}) {
+            for (int row = 0; row < 50; row++) {
+                for (int col = 0; col < 50; col++) {
+                    grid.setColor(row, col, color);
+                }
+            }
+            grid.paintComponent(screen.getGraphics());
+            Color expected = color == islands.middle.GameController.WHITE ? Color.WHITE : Color.BLACK;
+            assertEquals(expected.getRGB(), screen.getRGB(middle.x, middle.y), "expecting every hexagon's color");
+        }
+    }
+
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    @Test
+    @DisplayName("A 2500x2500 board fits the view and paints quickly at any zoom")
+    void superLargePaint() {
+        HexGrid grid = new HexGrid(2500, 10);
+        BufferedImage screen = new BufferedImage(Game.BOARD_WIDTH, Game.BOARD_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        grid.paintComponent(screen.getGraphics());
+        grid.zoomToFit();
+        assertTrue(grid.getZoom() < 1, "expecting the board zoomed out");
+        Rectangle view = new Rectangle(0, 0, Game.BOARD_WIDTH, Game.BOARD_HEIGHT);
+        for (int row : new int[] {0, 2499}) {
+            for (int col : new int[] {0, 2499}) {
+                assertTrue(view.contains(grid.bounds(row, col)), "expecting corner " + row + "," + col + " in view");
+            }
+        }
+        grid.paintComponent(screen.getGraphics());
+        grid.setColor(1250, 1250, islands.middle.GameController.WHITE);
+        grid.paintComponent(screen.getGraphics());
+        grid.zoom(64, Game.BOARD_WIDTH / 2, Game.BOARD_HEIGHT / 2);
+        grid.paintComponent(screen.getGraphics());
+    }
+
+    @Test
+    @DisplayName("Every hexagon's center maps back to it")
+    void centers() {
+        centersMapBack(new HexGrid(11, 20));
+    }
+
+    static void centersMapBack(HexGrid grid) {
+        for (int row = 0; row < grid.size; row++) {
+            for (int col = 0; col < grid.size; col++) {
+                Rectangle bounds = grid.bounds(row, col);
+                assertEquals(Optional.of(new Point(col, row)), grid.getHexDim((int) bounds.getCenterY(), (int) bounds.getCenterX()), "expecting the hexagon itself");
+            }
+        }
+    }
+}
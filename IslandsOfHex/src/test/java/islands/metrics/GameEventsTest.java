@@ -0,0 +1,97 @@
+package islands.metrics;
+
+import islands.backend.GameModel;
+import islands.frontend.HexGrid;
+import islands.middle.GameController;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.*;
+import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEventsTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * A view that draws nothing
+     */
+    static class NullView implements GameController.ViewDelegate {
+        public void displayTurn(String clr) {}
+        public void setColor(int row, int col, int clr) {}
+        public void listen(MouseListener ml) {}
+        public Optional<Point> getHexDim(int y, int x) { return Optional.empty(); }
+        public void setTime(double ms) {}
+        public void setWinner(String winner) {}
+        public void setScore(int whiteScore, int blackScore) {}
+    }
+
+    List<RecordedEvent> record(Runnable work) throws Exception {
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("islands.MakePlay").withThreshold(Duration.ZERO);
+            recording.enable("islands.Score");
+            recording.enable("islands.TryRowCol");
+            recording.enable("islands.Paint");
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).count();
+    }
+
+    @Test
+    @DisplayName("Each play, controller move and paint is recorded with its details")
+    void eventsRecorded() throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        List<RecordedEvent> events = record(() -> {
+            GameModel model = new GameModel(5);
+            model.makePlay(1, 2, GameModel.WHITE);
+
+            GameController gc = new GameController(false);
+            gc.setSize(5);
+            gc.setDelegate(new NullView());
+            gc.tryRowCol(0, 0);
+            gc.tryRowCol(0, 0);
+            gc.awaitIdle();
+            gc.stopAll();
+
+            HexGrid grid = new HexGrid(5);
+            grid.paintComponent(new BufferedImage(600, 800, BufferedImage.TYPE_INT_RGB).getGraphics());
+        });
+
+        RecordedEvent play = events.stream()
+                .filter(e -> e.getEventType().getName().equals("islands.MakePlay") && e.getInt("row") == 1)
+                .findFirst().orElseThrow();
+        assertEquals(5, play.getInt("boardSize"), "expecting the board size");
+        assertEquals(2, play.getInt("col"), "expecting the column");
+        assertEquals(1, play.getInt("move"), "expecting the move number");
+        assertTrue(play.getBoolean("white"), "expecting a white piece");
+        assertFalse(play.getBoolean("gameOver"), "game shouldn't be over");
+
+        assertEquals(2, count(events, "islands.MakePlay"), "expecting both plays");
+        assertEquals(2, count(events, "islands.TryRowCol"), "expecting both attempts");
+        assertEquals(1, count(events, "islands.Score"), "expecting the score read once");
+        assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("islands.TryRowCol")
+                && !e.getBoolean("played")).count(), "expecting the second attempt not played");
+        RecordedEvent paint = events.stream()
+                .filter(e -> e.getEventType().getName().equals("islands.Paint")).findFirst().orElseThrow();
+        assertEquals(25, paint.getInt("hexagons"), "expecting every hexagon drawn");
+    }
+}
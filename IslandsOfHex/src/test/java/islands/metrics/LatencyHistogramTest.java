@@ -0,0 +1,72 @@
+package islands.metrics;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 127, 128, 129, 255, 256, 1000, 123_456_789, LatencyHistogram.MAX_VALUE})
+    @DisplayName("Every value lands in a bucket within 1/64 of it")
+    void bucketPrecision(long value) {
+        int index = LatencyHistogram.index(value);
+        long high = LatencyHistogram.highestValue(index);
+        assertTrue(high >= value, "bucket should reach the value");
+        assertTrue(high - value <= value / 64, "bucket should be narrow");
+        if (index > 0) {
+            assertTrue(LatencyHistogram.highestValue(index - 1) < value, "previous bucket should end below the value");
+        }
+    }
+
+    @Test
+    @DisplayName("Percentiles, mean and max of a known spread")
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long v = 1; v <= 10_000; v++) {
+            histogram.record(v * 1000);
+        }
+        assertEquals(10_000, histogram.count(), "expecting every value counted");
+        assertEquals(5_000_500, histogram.mean(), 1e-6, "expecting the exact mean");
+        assertEquals(10_000_000, histogram.max(), "expecting the exact max");
+        assertEquals(5_000_000, histogram.percentile(0.5), 5_000_000 / 64.0, "p50 should be within a bucket");
+        assertEquals(9_900_000, histogram.percentile(0.99), 9_900_000 / 64.0, "p99 should be within a bucket");
+        assertEquals(10_000_000, histogram.percentile(1.0), "p100 should be the max");
+        histogram.reset();
+        assertEquals(0, histogram.count(), "expecting nothing after reset");
+        assertEquals(0, histogram.percentile(0.99), "expecting 0 for an empty histogram");
+    }
+
+    @Test
+    @DisplayName("Values out of range are clamped")
+    void clamps() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.count(), "expecting both values counted");
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.max(), "expecting the max clamped");
+        assertEquals(0, histogram.percentile(0.5), "expecting the negative value as 0");
+    }
+
+    @Test
+    @DisplayName("Threads recording at once lose nothing")
+    void concurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.count(), "expecting every value counted");
+        assertEquals(99_999, histogram.max(), "expecting the largest value");
+    }
+}
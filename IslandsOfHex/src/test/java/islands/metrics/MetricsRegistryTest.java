@@ -0,0 +1,54 @@
+package islands.metrics;
+
+import org.junit.jupiter.api.*;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    @DisplayName("Metrics are made once per name and show in the dump")
+    void sameMetricPerName() {
+        MetricsRegistry registry = new MetricsRegistry();
+        assertSame(registry.histogram("makePlay"), registry.histogram("makePlay"), "expecting one histogram per name");
+        assertSame(registry.counter("moves"), registry.counter("moves"), "expecting one counter per name");
+        registry.counter("moves").add(3);
+        registry.histogram("makePlay").record(1500);
+        String dump = registry.dump();
+        assertTrue(dump.contains("moves: 3"), "dump should hold the counter");
+        assertTrue(dump.contains("makePlay: count 1"), "dump should hold the histogram");
+        registry.reset();
+        assertEquals(0, registry.counter("moves").get(), "expecting counters reset");
+        assertEquals(0, registry.histogram("makePlay").count(), "expecting histograms reset");
+    }
+
+    @Test
+    @DisplayName("Metrics can be read and reset over JMX")
+    void jmx() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.registerMBean("islands.test:type=Metrics");
+        registry.counter("games").increment();
+        registry.histogram("repaint").record(2000);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("islands.test:type=Metrics");
+        try {
+            assertEquals(1L, server.getAttribute(name, "games"), "expecting the counter");
+            assertEquals(1L, server.getAttribute(name, "repaint.count"), "expecting the histogram count");
+            assertEquals(2000L, server.getAttribute(name, "repaint.max"), "expecting the histogram max");
+            assertTrue(server.getMBeanInfo(name).getAttributes().length >= 8, "expecting attributes for every metric");
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "games"), "expecting the counter reset");
+            ReflectionException unknown = assertThrows(ReflectionException.class, () -> server.invoke(name, "restart", null, null),
+                    "expecting a reflection exception for an unknown operation");
+            assertInstanceOf(NoSuchMethodException.class, unknown.getTargetException(), "expecting the missing operation as the cause");
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
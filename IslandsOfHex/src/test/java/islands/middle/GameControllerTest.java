@@ -0,0 +1,182 @@
+package islands.middle;
+
+import org.junit.jupiter.api.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameControllerTest {
+
+    /**
+     * A view that keeps what it is shown and checks it is shown it on the event dispatch thread
+     */
+    static class RecordingView implements GameController.ViewDelegate {
+        final List<int[]> colors = new ArrayList<>();
+        volatile String winner;
+        volatile int scores;
+        volatile boolean offThread;
+
+        private void check() {
+            if (!SwingUtilities.isEventDispatchThread()) {
+                offThread = true;
+            }
+        }
+
+        public void displayTurn(String clr) { check(); }
+        public void setColor(int row, int col, int clr) { check(); colors.add(new int[] {row, col, clr}); }
+        public void listen(MouseListener ml) {}
+        public Optional<Point> getHexDim(int y, int x) { return Optional.empty(); }
+        public void setTime(double ms) { check(); }
+        public void setWinner(String winner) { check(); this.winner = winner; }
+        public void setScore(int whiteScore, int blackScore) { check(); scores++; }
+    }
+
+    static void waitFor(BooleanSupplier done) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!done.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "expecting the view to be updated");
+            Thread.sleep(5);
+        }
+    }
+
+    @BeforeEach
+    void init() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    @DisplayName("Moves sent from any thread reach the view in order on the event dispatch thread")
+    void movesReachView() throws Exception {
+        GameController gc = new GameController(false);
+        RecordingView view = new RecordingView();
+        gc.setSize(3);
+        gc.setDelegate(view);
+        for (int hex = 0; hex < 9; hex++) {
+            gc.tryRowCol(hex / 3, hex % 3);
+        }
+        // already taken, so not shown
+        gc.tryRowCol(1, 1);
+        gc.awaitIdle();
+        waitFor(() -> view.winner != null);
+        gc.stopAll();
+
+        assertFalse(view.offThread, "expecting the view only touched on the event dispatch thread");
+        SwingUtilities.invokeAndWait(() -> {
+            assertEquals(9, view.colors.size(), "expecting each hex colored once");
+            for (int hex = 0; hex < 9; hex++) {
+                int[] color = view.colors.get(hex);
+                assertArrayEquals(new int[] {hex / 3, hex % 3, hex % 2 == 0 ? GameController.WHITE : GameController.BLACK}, color, "expecting the moves in the order played");
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("A simulation at full speed is shown in a few batches")
+    void simulationBatched() throws Exception {
+        GameController gc = new GameController(true, 0);
+        RecordingView view = new RecordingView();
+        gc.setSize(25);
+        gc.setDelegate(view);
+        waitFor(() -> view.winner != null);
+        gc.stopAll();
+
+        SwingUtilities.invokeAndWait(() -> {
+            int moves = view.colors.size();
+            assertEquals(moves, view.colors.stream().mapToInt(c -> c[0] * 25 + c[1]).distinct().count(), "expecting each hex colored once");
+            assertTrue(view.scores < moves / 4, "expecting many moves to a batch, got " + view.scores + " batches for " + moves + " moves");
+        });
+        assertFalse(view.offThread, "expecting the view only touched on the event dispatch thread");
+    }
+
+    @Test
+    @DisplayName("A slow computer player doesn't hold up the event dispatch thread")
+    void slowPlayerOffEventThread() throws Exception {
+        GameController gc = new GameController(false);
+        RecordingView view = new RecordingView();
+        gc.setSize(5);
+        gc.setPlayer(GameController.BLACK, (model, clr) -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return model.emptyHex(0);
+        });
+        gc.setDelegate(view);
+        gc.tryRowColFromPoint(new Point(2, 2));
+        waitFor(() -> view.colors.size() == 1);
+
+        long start = System.nanoTime();
+        SwingUtilities.invokeAndWait(() -> {});
+        assertTrue(System.nanoTime() - start < 250_000_000L, "expecting the event dispatch thread free while the computer thinks");
+
+        gc.awaitIdle();
+        waitFor(() -> view.colors.size() == 2);
+        gc.stopAll();
+    }
+
+    @Test
+    @DisplayName("A second click before the computer answers is ignored")
+    void clickDuringComputerTurn() throws Exception {
+        GameController gc = new GameController(false);
+        RecordingView view = new RecordingView();
+        gc.setSize(5);
+        gc.setPlayer(GameController.BLACK, (model, clr) -> model.emptyHex(0));
+        gc.setDelegate(view);
+        gc.tryRowColFromPoint(new Point(0, 0));
+        gc.tryRowColFromPoint(new Point(1, 1));
+        gc.awaitIdle();
+        gc.awaitIdle();
+        waitFor(() -> view.colors.size() == 2);
+        gc.stopAll();
+
+        SwingUtilities.invokeAndWait(() -> {
+            assertEquals(2, view.colors.size(), "expecting the click and the computer's answer only");
+            assertArrayEquals(new int[] {0, 0, GameController.WHITE}, view.colors.get(0), "expecting the first click played for white");
+            assertEquals(GameController.BLACK, view.colors.get(1)[2], "expecting the computer to play black");
+            assertFalse(view.colors.get(1)[0] == 1 && view.colors.get(1)[1] == 1, "expecting the second click not played");
+        });
+    }
+
+    @Test
+    @DisplayName("A move still being thought about when the game is stopped never reaches the view")
+    void stopDuringComputerTurn() throws Exception {
+        GameController gc = new GameController(false);
+        RecordingView view = new RecordingView();
+        CountDownLatch thinking = new CountDownLatch(1);
+        CountDownLatch answered = new CountDownLatch(1);
+        gc.setSize(5);
+        gc.setPlayer(GameController.BLACK, (model, clr) -> {
+            thinking.countDown();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            answered.countDown();
+            return model.emptyHex(0);
+        });
+        gc.setDelegate(view);
+        gc.tryRowColFromPoint(new Point(2, 2));
+        assertTrue(thinking.await(5, TimeUnit.SECONDS), "expecting the computer to start thinking");
+        waitFor(() -> view.colors.size() == 1);
+        gc.stopAll();
+
+        assertTrue(answered.await(5, TimeUnit.SECONDS), "expecting the computer to finish thinking");
+        // long enough for several frames
+        Thread.sleep(100);
+        SwingUtilities.invokeAndWait(() -> {
+            assertEquals(1, view.colors.size(), "expecting only the click shown");
+            assertNull(view.winner, "expecting no winner shown");
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package islands;
+
+import islands.backend.BatchedSimulator;
+
+/**
+ * Launching point for headless simulations played in vectorized batches:
+ * plays random games on every core, a PlayoutBatch of boards at a time, and
+ * prints the combined results. Needs --add-modules jdk.incubator.vector.
+ *
+ * usage: BatchedDriver games size [threads] [seed]
+ */
+public class BatchedDriver {
+
+    public static void main(String [] args) {
+        if (args.length < 2) {
+            System.err.println("usage: BatchedDriver games size [threads] [seed]");
+            System.exit(1);
+        }
+        long games = Long.parseLong(args[0]);
+        int size = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        System.out.println("seed " + seed + ", " + threads + " threads");
+        System.out.print(new BatchedSimulator(size, threads, seed).run(games));
+    }
+
+}
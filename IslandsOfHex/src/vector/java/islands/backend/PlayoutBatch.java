@@ -0,0 +1,363 @@
+package islands.backend;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays random games on many boards of one size at once, for work that needs
+ * a lot of playouts, such as simulation statistics and Monte Carlo rollouts.
+ *
+ * Playing a random empty hex every move is the same as playing the empty hexes
+ * in a random order, the sides taking turns, until the game ends. So each
+ * board is given its order up front, as the move on which each hex turns white
+ * or black, and the game is then worked out from those moves:
+ * <ul>
+ *   <li>a color first spans on the least, over every path of its hexes between
+ *   its edges, of the last move on the path</li>
+ *   <li>the game ends on the first span or the last move, and the islands are
+ *   those of the pieces played by then</li>
+ * </ul>
+ * Both are found by sweeping the board back and forth, each hex taking the
+ * least of its neighbors, until nothing changes. The boards are stored struct
+ * of arrays in groups of one vector, the values of a group's boards for one hex
+ * side by side, and every hex has the same neighbors on every board, so each
+ * step of a sweep handles a whole group with the jdk.incubator.vector API.
+ * Each group is swept on its own, so it stays in cache and stops as soon as
+ * its own boards are done.
+ */
+public class PlayoutBatch {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    // the move of a hex that a color never plays
+    private static final int NEVER = Integer.MAX_VALUE;
+    // the move of the pieces already on the board when the playouts start
+    private static final int START = -1;
+
+    private static final int LANES = SPECIES.length();
+
+    private final int size;
+    private final int hexes;
+    private final int boards;
+    // offsets of the neighbors of each hex from the start of a group
+    private final int[][] neighbors;
+
+    // the move on which each hex turns white or black, see slot for where each board's hex is
+    private final int[] whiteMoves;
+    private final int[] blackMoves;
+    // the latest move on the best path to a hex, then the island label of a hex
+    private final int[] sweep;
+    // the empty hexes at the start, in the order they are played on one board
+    private final int[] order;
+    private int empty;
+    private int startMoves;
+
+    // per board results
+    private final int[] whiteSpans;
+    private final int[] blackSpans;
+    private final int[] ends;
+    private final int[] whiteScores;
+    private final int[] blackScores;
+
+    /**
+     * Create a batch of boards
+     * @param size the square size of the boards
+     * @param boards the number of games to play at once, rounded up to a whole number of vectors
+     * @throws IllegalArgumentException for a size or board count below 1
+     */
+    public PlayoutBatch(int size, int boards) {
+        if (size < 1 || boards < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.size = size;
+        this.hexes = size * size;
+        this.boards = SPECIES.loopBound(boards + LANES - 1);
+        BoardTopology topology = BoardTopology.of(size);
+        neighbors = new int[hexes][];
+        for (int hex = 0; hex < hexes; hex++) {
+            int count = 0;
+            int[] next = new int[BoardTopology.DIRECTIONS];
+            for (int dir = 0; dir < BoardTopology.DIRECTIONS; dir++) {
+                if (topology.hasNeighbor(hex, dir)) {
+                    next[count++] = topology.neighbor(hex, dir) * LANES;
+                }
+            }
+            neighbors[hex] = Arrays.copyOf(next, count);
+        }
+        whiteMoves = new int[hexes * this.boards];
+        blackMoves = new int[hexes * this.boards];
+        sweep = new int[hexes * this.boards];
+        order = new int[hexes];
+        whiteSpans = new int[this.boards];
+        blackSpans = new int[this.boards];
+        ends = new int[this.boards];
+        whiteScores = new int[this.boards];
+        blackScores = new int[this.boards];
+    }
+
+    /**
+     * @return the number of games played at once
+     */
+    public int boards() {
+        return boards;
+    }
+
+    /**
+     * @return the number of boards each vector operation handles on this machine
+     */
+    public static int lanes() {
+        return LANES;
+    }
+
+    /**
+     * Play a random game from the empty board on every board, white first
+     * @param rand the source of randomness
+     */
+    public void play(RandomGenerator rand) {
+        play(new GameModel(size), GameModel.WHITE, rand);
+    }
+
+    /**
+     * Play a random game on every board from a game in progress
+     * @param start the position to play from, left as it was found
+     * @param clr the side to move first, true for WHITE and false for BLACK
+     * @param rand the source of randomness
+     * @throws IllegalArgumentException if the game is another size or already over
+     */
+    public void play(GameModel start, boolean clr, RandomGenerator rand) {
+        setUp(start);
+        for (int board = 0; board < boards; board++) {
+            // shuffle on from the last board's order, any order of the empty hexes will do
+            for (int i = empty - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int hex = order[i];
+                order[i] = order[j];
+                order[j] = hex;
+            }
+            placeOrder(board, clr);
+        }
+        finish();
+    }
+
+    /**
+     * Play given orders of the empty hexes instead of random ones
+     * @param orders the empty hexes of start for each board, in the order they are played
+     */
+    void play(GameModel start, boolean clr, int[][] orders) {
+        setUp(start);
+        for (int board = 0; board < boards; board++) {
+            System.arraycopy(orders[board], 0, order, 0, empty);
+            placeOrder(board, clr);
+        }
+        finish();
+    }
+
+    /**
+     * @param board which board, from 0 to boards() - 1
+     * @return the number of pieces on the board when the game ended
+     */
+    public int moves(int board) {
+        return startMoves + ends[board] + 1;
+    }
+
+    /**
+     * @param board which board, from 0 to boards() - 1
+     * @return white's score when the game ended
+     */
+    public int whiteScore(int board) {
+        return whiteScores[board];
+    }
+
+    /**
+     * @param board which board, from 0 to boards() - 1
+     * @return black's score when the game ended
+     */
+    public int blackScore(int board) {
+        return blackScores[board];
+    }
+
+    /**
+     * @param board which board, from 0 to boards() - 1
+     * @return true if the game ended on a white island joining the top and bottom edges
+     */
+    public boolean whiteSpan(int board) {
+        return whiteSpans[board] == ends[board];
+    }
+
+    /**
+     * @param board which board, from 0 to boards() - 1
+     * @return true if the game ended on a black island joining the left and right edges
+     */
+    public boolean blackSpan(int board) {
+        return blackSpans[board] == ends[board];
+    }
+
+    /**
+     * Put the pieces of the start position on every board and list its empty hexes in order
+     */
+    private void setUp(GameModel start) {
+        if (start.gameEdge != size || start.isGameOver()) {
+            throw new IllegalArgumentException();
+        }
+        startMoves = start.move;
+        empty = 0;
+        for (int hex = 0; hex < hexes; hex++) {
+            byte tile = start.board[hex];
+            if (tile == GameModel.EMPTY) {
+                order[empty++] = hex;
+            }
+            int white = tile == GameModel.WHITE_TILE ? START : NEVER;
+            int black = tile == GameModel.BLACK_TILE ? START : NEVER;
+            for (int group = 0; group < boards; group += LANES) {
+                int slot = slot(group, hex);
+                Arrays.fill(whiteMoves, slot, slot + LANES, white);
+                Arrays.fill(blackMoves, slot, slot + LANES, black);
+            }
+        }
+    }
+
+    /**
+     * Give the hexes of one board the moves on which they are played, in the order of order
+     */
+    private void placeOrder(int board, boolean clr) {
+        int[] first = clr == GameModel.WHITE ? whiteMoves : blackMoves;
+        int[] second = clr == GameModel.WHITE ? blackMoves : whiteMoves;
+        int group = board - board % LANES;
+        int lane = board % LANES;
+        for (int move = 0; move < empty; move++) {
+            int slot = slot(group, order[move]) + lane;
+            if ((move & 1) == 0) {
+                first[slot] = move;
+            } else {
+                second[slot] = move;
+            }
+        }
+    }
+
+    /**
+     * Where the value of a hex starts for a group of boards; the group's boards follow it in order
+     * @param group the first board of the group
+     */
+    private int slot(int group, int hex) {
+        return group * hexes + hex * LANES;
+    }
+
+    /**
+     * Work out the end and scores of every board from the moves placed, a group at a time
+     */
+    private void finish() {
+        for (int group = 0; group < boards; group += LANES) {
+            int base = slot(group, 0);
+            IntVector whiteSpan = spanMoves(whiteMoves, base, true);
+            IntVector blackSpan = spanMoves(blackMoves, base, false);
+            IntVector end = whiteSpan.min(blackSpan).min(empty - 1);
+            whiteSpan.intoArray(whiteSpans, group);
+            blackSpan.intoArray(blackSpans, group);
+            end.intoArray(ends, group);
+            countIslands(whiteMoves, base, end).intoArray(whiteScores, group);
+            countIslands(blackMoves, base, end).intoArray(blackScores, group);
+        }
+    }
+
+    /**
+     * Find the move on which each board of a group first has an island of one color joining its edges
+     * @param moves the move on which each hex turns the color
+     * @param base where the group starts
+     * @param rows true to join the top and bottom rows, false for the left and right columns
+     * @return the move for each board, NEVER if the color never spans
+     */
+    private IntVector spanMoves(int[] moves, int base, boolean rows) {
+        // the edge hexes a path starts from are reached on their own move, the rest not yet
+        IntVector never = IntVector.broadcast(SPECIES, NEVER);
+        for (int hex = 0; hex < hexes; hex++) {
+            int slot = base + hex * LANES;
+            ((rows ? hex < size : hex % size == 0) ? IntVector.fromArray(SPECIES, moves, slot) : never)
+                    .intoArray(sweep, slot);
+        }
+        boolean forward = true;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < hexes; i++) {
+                int hex = forward ? i : hexes - 1 - i;
+                if (rows ? hex >= size : hex % size != 0) {
+                    changed |= relax(moves, base, hex, false);
+                }
+            }
+            forward = !forward;
+        }
+        IntVector least = never;
+        for (int i = 0; i < size; i++) {
+            int hex = rows ? hexes - size + i : i * size + size - 1;
+            least = least.min(IntVector.fromArray(SPECIES, sweep, base + hex * LANES));
+        }
+        return least;
+    }
+
+    /**
+     * Count the islands of one color on each board of a group when its game ended
+     * @param moves the move on which each hex turns the color
+     * @param base where the group starts
+     * @param end the last move of each board
+     * @return the count for each board
+     */
+    private IntVector countIslands(int[] moves, int base, IntVector end) {
+        // every piece played by the end starts as an island of its own, labeled by its hex
+        IntVector never = IntVector.broadcast(SPECIES, NEVER);
+        for (int hex = 0; hex < hexes; hex++) {
+            int slot = base + hex * LANES;
+            VectorMask<Integer> played = IntVector.fromArray(SPECIES, moves, slot).compare(VectorOperators.LE, end);
+            never.blend(hex, played).intoArray(sweep, slot);
+        }
+        boolean forward = true;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < hexes; i++) {
+                changed |= relax(moves, base, forward ? i : hexes - 1 - i, true);
+            }
+            forward = !forward;
+        }
+        // an island is counted at the hex its label came from
+        IntVector one = IntVector.broadcast(SPECIES, 1);
+        IntVector count = IntVector.zero(SPECIES);
+        for (int hex = 0; hex < hexes; hex++) {
+            VectorMask<Integer> root = IntVector.fromArray(SPECIES, sweep, base + hex * LANES).compare(VectorOperators.EQ, hex);
+            count = count.add(one, root);
+        }
+        return count;
+    }
+
+    /**
+     * Lower the sweep value of one hex on each board of a group to the least of its neighbors'
+     * @param moves the move on which each hex turns the color
+     * @param base where the group starts
+     * @param labels true to spread island labels, which only pieces on the board carry,
+     *               false to spread the latest move on a path, which is at least the hex's own move
+     * @return true if any board's value went down
+     */
+    private boolean relax(int[] moves, int base, int hex, boolean labels) {
+        int slot = base + hex * LANES;
+        IntVector current = IntVector.fromArray(SPECIES, sweep, slot);
+        IntVector least = current;
+        for (int offset : neighbors[hex]) {
+            least = least.min(IntVector.fromArray(SPECIES, sweep, base + offset));
+        }
+        IntVector lowered;
+        if (labels) {
+            // hexes without a piece keep no label
+            lowered = least.blend(NEVER, current.compare(VectorOperators.EQ, NEVER));
+        } else {
+            lowered = least.max(IntVector.fromArray(SPECIES, moves, slot));
+        }
+        if (lowered.compare(VectorOperators.LT, current).anyTrue()) {
+            lowered.intoArray(sweep, slot);
+            return true;
+        }
+        return false;
+    }
+}
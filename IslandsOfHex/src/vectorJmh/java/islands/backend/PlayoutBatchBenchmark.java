@@ -0,0 +1,67 @@
+package islands.backend;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares random playouts one GameModel at a time with a PlayoutBatch. Each
+ * operation plays BOARDS games either way, so the throughput multiplied by
+ * BOARDS is playouts per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class PlayoutBatchBenchmark {
+
+    static final int BOARDS = 256;
+
+    @Param({"5", "11", "25"})
+    int size;
+
+    SplittableRandom rand;
+    GameModel model;
+    PlayoutBatch batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rand = new SplittableRandom(42);
+        model = new GameModel(size);
+        batch = new PlayoutBatch(size, BOARDS);
+    }
+
+    @Benchmark
+    public int gameModel() {
+        int whiteWins = 0;
+        for (int game = 0; game < BOARDS; game++) {
+            model.reset();
+            boolean clr = GameModel.WHITE;
+            boolean done = false;
+            while (!done) {
+                int hex = model.randomEmptyHex(rand);
+                done = model.makePlay(hex / size, hex % size, clr);
+                clr = !clr;
+            }
+            if (model.whiteScore() > model.blackScore()) {
+                whiteWins++;
+            }
+        }
+        return whiteWins;
+    }
+
+    @Benchmark
+    public int batched() {
+        batch.play(rand);
+        int whiteWins = 0;
+        for (int board = 0; board < BOARDS; board++) {
+            if (batch.whiteScore(board) > batch.blackScore(board)) {
+                whiteWins++;
+            }
+        }
+        return whiteWins;
+    }
+}
@@ -0,0 +1,38 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchedSimulatorTest {
+
+    @Test
+    @DisplayName("Batched games are counted exactly and agree with games played one at a time")
+    void batchedMatchesSingle() {
+        BatchSimulator.Results few = new BatchedSimulator(5, 3, 7).run(100);
+        assertEquals(100, few.games(), "expecting every game to be played, not whole batches");
+        assertEquals(1.0, few.whiteWinRate() + few.blackWinRate() + few.tieRate(), 1e-9, "outcomes should add up to every game");
+
+        BatchSimulator.Results single = new BatchSimulator(5, 1, 11).run(20000);
+        BatchSimulator.Results batched = new BatchedSimulator(5, 1, 11).run(20000);
+        assertEquals(single.whiteWinRate(), batched.whiteWinRate(), 0.03, "white win rates should agree");
+        assertEquals(single.blackWinRate(), batched.blackWinRate(), 0.03, "black win rates should agree");
+        assertEquals(single.meanLength(), batched.meanLength(), 0.5, "game lengths should agree");
+    }
+
+    @Test
+    @DisplayName("Same seed and threads give the same results")
+    void reproducible() {
+        String first = new BatchedSimulator(11, 2, 42).run(600).toString();
+        String second = new BatchedSimulator(11, 2, 42).run(600).toString();
+        // the first line has the timing, which varies between runs
+        assertEquals(first.substring(first.indexOf('\n')), second.substring(second.indexOf('\n')), "results should repeat");
+    }
+
+    @Test
+    @DisplayName("Needs a board and a thread")
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, ()->new BatchedSimulator(0, 1, 1), "expecting illegal argument exception for an empty board");
+        assertThrows(IllegalArgumentException.class, ()->new BatchedSimulator(5, 0, 1), "expecting illegal argument exception without threads");
+    }
+}
@@ -0,0 +1,118 @@
+package islands.backend;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayoutBatchTest {
+
+    /**
+     * Random orders of the empty hexes of a game, one per board
+     */
+    static int[][] randomOrders(GameModel start, int boards, Random rand) {
+        int[][] orders = new int[boards][start.emptyCount()];
+        for (int[] order : orders) {
+            int count = 0;
+            for (int hex = 0; hex < start.board.length; hex++) {
+                if (start.board[hex] == GameModel.EMPTY) {
+                    order[count++] = hex;
+                }
+            }
+            for (int i = count - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int hex = order[i];
+                order[i] = order[j];
+                order[j] = hex;
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Play the same orders one game at a time and check the batch got each game right
+     */
+    static void checkAgainstGameModel(PlayoutBatch batch, GameModel start, boolean clr, int[][] orders) {
+        batch.play(start, clr, orders);
+        for (int board = 0; board < batch.boards(); board++) {
+            GameModel model = new GameModel(start);
+            boolean side = clr;
+            boolean done = false;
+            for (int i = 0; !done; i++) {
+                int hex = orders[board][i];
+                done = model.makePlay(hex / model.gameEdge, hex % model.gameEdge, side);
+                side = !side;
+            }
+            assertEquals(model.move, batch.moves(board), "game length should match board " + board);
+            assertEquals(model.whiteScore(), batch.whiteScore(board), "white score should match board " + board);
+            assertEquals(model.blackScore(), batch.blackScore(board), "black score should match board " + board);
+            assertEquals(model.whiteSpan(), batch.whiteSpan(board), "white span should match board " + board);
+            assertEquals(model.blackSpan(), batch.blackSpan(board), "black span should match board " + board);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 1", "2, 5", "5, 40", "11, 33", "25, 17"})
+    @DisplayName("Games from the empty board match GameModel")
+    void matchesGameModel(int size, int boards) {
+        PlayoutBatch batch = new PlayoutBatch(size, boards);
+        GameModel start = new GameModel(size);
+        checkAgainstGameModel(batch, start, GameModel.WHITE, randomOrders(start, batch.boards(), new Random(size)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"3, 4", "5, 10", "11, 60"})
+    @DisplayName("Rollouts from a game in progress match GameModel, whichever side moves")
+    void rolloutsMatchGameModel(int size, int played) {
+        GameModel start = AlphaBetaPlayerTest.randomPosition(size, size * size - played, size);
+        PlayoutBatch batch = new PlayoutBatch(size, 20);
+        Random rand = new Random(played);
+        checkAgainstGameModel(batch, start, GameModel.WHITE, randomOrders(start, batch.boards(), rand));
+        checkAgainstGameModel(batch, start, GameModel.BLACK, randomOrders(start, batch.boards(), rand));
+        // the start is left as it was
+        assertEquals(played, start.move, "expecting the start position unchanged");
+    }
+
+    @Test
+    @DisplayName("Boards are rounded up to whole vectors")
+    void roundsBoards() {
+        int lanes = PlayoutBatch.lanes();
+        assertEquals(lanes, new PlayoutBatch(5, 1).boards(), "expecting one vector of boards");
+        assertEquals(2 * lanes, new PlayoutBatch(5, lanes + 1).boards(), "expecting two vectors of boards");
+        assertEquals(lanes, new PlayoutBatch(5, lanes).boards(), "expecting a whole vector kept");
+    }
+
+    @Test
+    @DisplayName("Random games end the way random games of GameModel do")
+    void randomGames() {
+        PlayoutBatch batch = new PlayoutBatch(5, 64);
+        SplittableRandom rand = new SplittableRandom(5);
+        for (int round = 0; round < 10; round++) {
+            batch.play(rand);
+            for (int board = 0; board < batch.boards(); board++) {
+                assertTrue(batch.whiteSpan(board) ^ batch.blackSpan(board), "a 5x5 game always ends on one span");
+                assertTrue(batch.moves(board) >= 5 && batch.moves(board) <= 25, "game length should fit on the board");
+                assertTrue(batch.whiteScore(board) >= 1 && batch.blackScore(board) >= 0, "expecting a white island");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Needs a board size and a board, and a game in progress of that size")
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PlayoutBatch(0, 1), "expecting illegal argument exception for an empty board");
+        assertThrows(IllegalArgumentException.class, () -> new PlayoutBatch(5, 0), "expecting illegal argument exception without boards");
+        PlayoutBatch batch = new PlayoutBatch(3, 1);
+        SplittableRandom rand = new SplittableRandom(1);
+        assertThrows(IllegalArgumentException.class, () -> batch.play(new GameModel(5), GameModel.WHITE, rand), "expecting illegal argument exception for another size");
+        GameModel over = new GameModel(3);
+        over.makePlay(0, 1, GameModel.WHITE);
+        over.makePlay(1, 1, GameModel.WHITE);
+        assertTrue(over.makePlay(2, 1, GameModel.WHITE), "a column of white spans the board");
+        assertThrows(IllegalArgumentException.class, () -> batch.play(over, GameModel.BLACK, rand), "expecting illegal argument exception for a game that is over");
+    }
+}